@@ -0,0 +1,11 @@
+#!/bin/sh
+# Build the application and the benchmarks, then run JMH and keep the results
+# as JSON named after the current commit, e.g. results/3f2a9c1.json.
+# Extra arguments go to JMH, e.g. ./run.sh JwtBenchmark -f 1 -wi 2 -i 3
+set -e
+cd "$(dirname "$0")"
+(cd .. && ./mvnw -q install -DskipTests)
+../mvnw -q -f pom.xml package
+mkdir -p results
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+java -jar target/benchmarks.jar -rf json -rff "results/$commit.json" "$@"
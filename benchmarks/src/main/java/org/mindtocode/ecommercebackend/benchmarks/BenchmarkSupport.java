@@ -0,0 +1,99 @@
+package org.mindtocode.ecommercebackend.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.mindtocode.ecommercebackend.model.Product;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Wires application beans by hand, the way Spring would with field injection,
+ * so benchmarks measure the code itself without a context or a database
+ */
+final class BenchmarkSupport {
+
+    private static final String[] BRANDS = { "Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne" };
+    private static final String[] CATEGORIES = { "Laptop", "Phone", "Headphones", "Camera", "Monitor", "Tablet" };
+    private static final String[] WORDS = { "wireless", "pro", "ultra", "compact", "gaming", "noise", "cancelling",
+            "portable", "smart", "curved", "mirrorless", "lightweight", "waterproof", "bluetooth", "fast", "charging" };
+
+    private BenchmarkSupport() {
+    }
+
+    static void inject(Object target, String field, Object value) {
+        try {
+            Field declared = target.getClass().getDeclaredField(field);
+            declared.setAccessible(true);
+            declared.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + field, e);
+        }
+    }
+
+    static void postConstruct(Object target) {
+        try {
+            for (Method method : target.getClass().getDeclaredMethods()) {
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    method.setAccessible(true);
+                    method.invoke(target);
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot initialize " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Repository stand-in answering the listed methods and failing on any
+     * other call, so a benchmark cannot silently measure an unstubbed path
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> repository, Map<String, StubMethod> methods) {
+        return (T) Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[] { repository },
+                (proxy, method, args) -> {
+                    StubMethod answer = methods.get(method.getName());
+                    if (answer != null) {
+                        return answer.invoke(args);
+                    }
+                    if (method.getName().equals("toString")) {
+                        return repository.getSimpleName() + " stub";
+                    }
+                    throw new UnsupportedOperationException(repository.getSimpleName() + "." + method.getName());
+                });
+    }
+
+    /**
+     * Deterministic catalog, the same seed gives the same products on every run
+     */
+    static List<Product> catalog(int size) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            String name = brand + " " + WORDS[random.nextInt(WORDS.length)] + " " + category + " " + id;
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 20; w++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            products.add(new Product(id, name, description.toString().trim(), brand,
+                    BigDecimal.valueOf(10 + random.nextInt(2000)).add(new BigDecimal("0.99")), category,
+                    new Date(1_700_000_000_000L + id * 60_000L), true, 1_000_000, "image.png", "image/png",
+                    null));
+        }
+        return products;
+    }
+
+    @FunctionalInterface
+    interface StubMethod {
+        Object invoke(Object[] args);
+    }
+}
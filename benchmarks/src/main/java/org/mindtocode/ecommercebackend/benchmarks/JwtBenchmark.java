@@ -0,0 +1,79 @@
+package org.mindtocode.ecommercebackend.benchmarks;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.mindtocode.ecommercebackend.config.JwtProperties;
+import org.mindtocode.ecommercebackend.model.Role;
+import org.mindtocode.ecommercebackend.model.User;
+import org.mindtocode.ecommercebackend.model.UserPrinciple;
+import org.mindtocode.ecommercebackend.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token issue and verification. cacheSize 0 measures the full signature check
+ * on every call, the default size measures repeat requests with the same token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({ "0", "10000" })
+    public long cacheSize;
+
+    private JwtService jwtService;
+    private User user;
+    private UserPrinciple userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        properties.setExpiration(TimeUnit.HOURS.toMillis(1));
+        JwtProperties.Refresh refresh = new JwtProperties.Refresh();
+        refresh.setExpiration(TimeUnit.DAYS.toMillis(7));
+        properties.setRefresh(refresh);
+        properties.getCache().setMaximumSize(cacheSize);
+
+        jwtService = new JwtService();
+        BenchmarkSupport.inject(jwtService, "jwtProperties", properties);
+        BenchmarkSupport.postConstruct(jwtService);
+
+        user = new User();
+        user.setId(1);
+        user.setUsername("benchmark@example.com");
+        user.setRole(Role.USER);
+        userDetails = new UserPrinciple(user);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token, userDetails);
+    }
+}
@@ -0,0 +1,116 @@
+package org.mindtocode.ecommercebackend.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.mindtocode.ecommercebackend.config.InventoryProperties;
+import org.mindtocode.ecommercebackend.model.Order;
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.OrderItemRequest;
+import org.mindtocode.ecommercebackend.model.dto.OrderItemRow;
+import org.mindtocode.ecommercebackend.model.dto.OrderRequest;
+import org.mindtocode.ecommercebackend.model.dto.OrderResponse;
+import org.mindtocode.ecommercebackend.repo.OrderRepo;
+import org.mindtocode.ecommercebackend.repo.ProductRepo;
+import org.mindtocode.ecommercebackend.service.InventoryLedger;
+import org.mindtocode.ecommercebackend.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+
+/**
+ * OrderService mapping with the repositories answered from memory:
+ * placeOrder turns a request into entities and back into a response,
+ * getOrders maps a page of orders and their item rows into responses
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({ "1", "10" })
+    public int itemsPerOrder;
+
+    private OrderService orderService;
+    private OrderRequest orderRequest;
+
+    @Setup
+    public void setUp() {
+        List<Product> catalog = BenchmarkSupport.catalog(100);
+        Map<Integer, Product> byId = catalog.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Order> page = new ArrayList<>();
+        List<OrderItemRow> rows = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Order order = new Order(id, "ord" + id, "Customer " + id, "customer" + id + "@example.com", "placed",
+                    new Date(), List.of());
+            page.add(order);
+            for (int i = 0; i < itemsPerOrder; i++) {
+                Product product = catalog.get((int) (id * 7 + i) % catalog.size());
+                rows.add(new OrderItemRow(id, product.getName(), 1, product.getPrice()));
+            }
+        }
+
+        ProductRepo productRepo = BenchmarkSupport.stub(ProductRepo.class, Map.of(
+                "findAllById", args -> {
+                    List<Product> found = new ArrayList<>();
+                    ((Iterable<?>) args[0]).forEach(id -> found.add(byId.get(id)));
+                    return found;
+                },
+                "decrementStock", args -> List.of()));
+        OrderRepo orderRepo = BenchmarkSupport.stub(OrderRepo.class, Map.of(
+                "save", args -> {
+                    Order order = (Order) args[0];
+                    order.setOrderDate(new Date());
+                    return order;
+                },
+                "findAll", args -> new PageImpl<>(page, (Pageable) args[0], 1_000),
+                "findItemRows", args -> rows));
+
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.setLedgerEnabled(false);
+        InventoryLedger inventoryLedger = new InventoryLedger();
+        BenchmarkSupport.inject(inventoryLedger, "inventoryProperties", inventoryProperties);
+
+        orderService = new OrderService();
+        BenchmarkSupport.inject(orderService, "productRepo", productRepo);
+        BenchmarkSupport.inject(orderService, "orderRepo", orderRepo);
+        BenchmarkSupport.inject(orderService, "inventoryLedger", inventoryLedger);
+
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < itemsPerOrder; i++) {
+            items.add(new OrderItemRequest(catalog.get(i * 3).getId(), 1 + i % 3));
+        }
+        orderRequest = new OrderRequest("Benchmark Customer", "benchmark@example.com", items);
+    }
+
+    @Benchmark
+    public OrderResponse placeOrder() {
+        return orderService.placeOrder(orderRequest);
+    }
+
+    @Benchmark
+    public PagedModel<OrderResponse> getOrders() {
+        return orderService.getOrders(0, 20);
+    }
+}
@@ -0,0 +1,67 @@
+package org.mindtocode.ecommercebackend.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.ProductSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Jackson serialization of one listing page, as entities (what the listing
+ * returned before ProductSummary) and as the summaries it returns now
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagedModelSerializationBenchmark {
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private JsonMapper jsonMapper;
+    private PagedModel<Product> products;
+    private PagedModel<ProductSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        List<Product> content = BenchmarkSupport.catalog(pageSize);
+        PageRequest pageable = PageRequest.of(0, pageSize);
+        products = new PagedModel<>(new PageImpl<>(content, pageable, 10_000));
+        summaries = new PagedModel<>(new PageImpl<>(content.stream()
+                .map(p -> new ProductSummary(p.getId(), p.getName(), p.getDescription(), p.getBrand(),
+                        p.getPrice(), p.getCategory(), p.getReleasedDate(), p.getProductAvailable(),
+                        p.getStockQuantity(), "/api/product/" + p.getId() + "/image",
+                        "/api/product/" + p.getId() + "/image?size=thumbnail"))
+                .toList(), pageable, 10_000));
+    }
+
+    @Benchmark
+    public byte[] products() {
+        return jsonMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] summaries() {
+        return jsonMapper.writeValueAsBytes(summaries);
+    }
+}
@@ -0,0 +1,52 @@
+package org.mindtocode.ecommercebackend.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.search.ProductSearchIndex;
+import org.mindtocode.ecommercebackend.search.SearchHits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Keyword search over the in-process index behind /api/products/search, one
+ * page of 20 ranked ids per query
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int catalogSize;
+
+    @Param({ "laptop", "wireless pro", "acme gaming mon" })
+    public String query;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex();
+        for (Product product : BenchmarkSupport.catalog(catalogSize)) {
+            index.index(product);
+        }
+    }
+
+    @Benchmark
+    public SearchHits search() {
+        return index.search(query, 0, 20);
+    }
+}
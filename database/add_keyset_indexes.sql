@@ -0,0 +1,5 @@
+-- SQL script to add the indexes behind keyset (cursor) pagination
+-- products/scroll walks product by (released_date, id), orders/scroll walks orders by (order_date, id)
+
+CREATE INDEX IF NOT EXISTS idx_product_released_date_id ON product (released_date, id);
+CREATE INDEX IF NOT EXISTS idx_orders_order_date_id ON orders (order_date, id);
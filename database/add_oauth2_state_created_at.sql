@@ -0,0 +1,8 @@
+-- SQL script for the database-backed OAuth2 state store (oauth2.state.store=jdbc)
+-- States older than oauth2.state.ttl are rejected and purged by created_at.
+-- The default in-memory store does not use this table.
+
+ALTER TABLE oauth2state ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+UPDATE oauth2state SET created_at = now() WHERE created_at IS NULL;
+ALTER TABLE oauth2state ALTER COLUMN created_at SET NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_oauth2state_created_at ON oauth2state (created_at);
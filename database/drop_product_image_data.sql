@@ -0,0 +1,17 @@
+-- SQL script to drop the old product.image_data column (after the copy)
+-- Run only after the application has started once with
+-- IMAGE_STORAGE_MIGRATE_LEGACY=true (see database/migrate_product_images.sql).
+-- Refuses to drop the column while any row still references a large object,
+-- since those images would be lost and the large objects orphaned.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'product' AND column_name = 'image_data') THEN
+        IF EXISTS (SELECT 1 FROM product WHERE image_data IS NOT NULL) THEN
+            RAISE EXCEPTION 'product.image_data still holds % images, run the application with IMAGE_STORAGE_MIGRATE_LEGACY=true first',
+                (SELECT count(*) FROM product WHERE image_data IS NOT NULL);
+        END IF;
+        ALTER TABLE product DROP COLUMN image_data;
+    END IF;
+END $$;
@@ -0,0 +1,11 @@
+-- SQL script to move product images out of the product row (before the copy)
+-- Images now live in the content-addressed image store (image.storage.location)
+-- and product only keeps the content key.
+
+-- 1. Add the key column (ddl-auto: update does this in dev)
+ALTER TABLE product ADD COLUMN IF NOT EXISTS image_key VARCHAR(64);
+
+-- 2. Start the application once with IMAGE_STORAGE_MIGRATE_LEGACY=true to copy
+--    the old image_data large objects into the store and fill image_key
+
+-- 3. Then run database/drop_product_image_data.sql to drop the old column
@@ -0,0 +1,34 @@
+-- SQL script to move refresh_token from the raw JWT to its SHA-256 hash
+-- The primary key becomes a fixed 64-char hex string, expires_at lets the
+-- background purger find expired rows by index and created_at orders a
+-- user's sessions for the per-user cap.
+
+-- 1. New columns, filled from the existing rows
+ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS token_hash VARCHAR(64);
+ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP(6);
+ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+
+UPDATE refresh_token
+SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex'),
+    -- exp claim of the JWT payload (second segment, base64url)
+    expires_at = to_timestamp((convert_from(decode(
+        rpad(translate(split_part(token, '.', 2), '-_', '+/'),
+             ((length(split_part(token, '.', 2)) + 3) / 4) * 4, '='),
+        'base64'), 'UTF8')::json ->> 'exp')::bigint),
+    created_at = now()
+WHERE token_hash IS NULL;
+
+-- 2. Swap the primary key
+ALTER TABLE refresh_token DROP CONSTRAINT IF EXISTS refresh_token_pkey;
+ALTER TABLE refresh_token DROP COLUMN token;
+ALTER TABLE refresh_token ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_token ALTER COLUMN expires_at SET NOT NULL;
+ALTER TABLE refresh_token ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE refresh_token ADD PRIMARY KEY (token_hash);
+
+-- 3. Indexes used by the purge and the per-user cap
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expires_at ON refresh_token (expires_at);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user_created_at ON refresh_token (user_id, created_at);
+
+-- Expired rows are removed by the application from now on
+DELETE FROM refresh_token WHERE expires_at < now();
@@ -0,0 +1,25 @@
+-- SQL script to move product, users, orders and order_item from IDENTITY
+-- columns to sequences. Hibernate takes ids from these 50 at a time (pooled-lo)
+-- and can then batch INSERTs, e.g. an order and all of its items.
+
+-- 1. Sequences starting above the current ids, INCREMENT BY matches allocationSize
+CREATE SEQUENCE IF NOT EXISTS product_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_item_seq INCREMENT BY 50;
+
+SELECT setval('product_seq', COALESCE((SELECT MAX(id) FROM product), 0) + 1, false);
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+SELECT setval('orders_seq', COALESCE((SELECT MAX(id) FROM orders), 0) + 1, false);
+SELECT setval('order_item_seq', COALESCE((SELECT MAX(id) FROM order_item), 0) + 1, false);
+
+-- 2. Drop the identity (or serial default) so the id always comes from the application
+ALTER TABLE product ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE order_item ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE product ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE orders ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE order_item ALTER COLUMN id DROP DEFAULT;
@@ -0,0 +1,11 @@
+#!/bin/sh
+# Run the same load on Tomcat platform threads and on virtual threads and keep
+# both results, results/<commit>-platform.json and results/<commit>-virtual.json.
+# Options go to both runs, e.g. ./compare-threads.sh --concurrency=500 --duration=30s
+# Both runs always happen; the script fails if either of them failed.
+cd "$(dirname "$0")" || exit 1
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+status=0
+./run.sh --spring.threads.virtual.enabled=false --out="results/$commit-platform.json" "$@" || status=1
+./run.sh --spring.threads.virtual.enabled=true --out="results/$commit-virtual.json" "$@" || status=1
+exit $status
@@ -0,0 +1,8 @@
+#!/bin/sh
+# Build the application, then run the HTTP load test against it and keep the
+# results as JSON named after the current commit, e.g. results/3f2a9c1.json.
+# Options go to the load test, e.g. ./run.sh --duration=30s --concurrency=128
+set -e
+cd "$(dirname "$0")"
+(cd .. && ./mvnw -q install -DskipTests)
+../mvnw -q -f pom.xml compile exec:java -Dexec.cleanupDaemonThreads=false -Dexec.args="$*"
@@ -0,0 +1,70 @@
+package org.mindtocode.ecommercebackend.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and response codes of one endpoint. Status 0 stands for a request
+ * that failed before a response arrived (connect error, timeout).
+ */
+public class EndpointStats {
+
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    void record(int status, long micros) {
+        latencies.recordValue(Math.min(micros, latencies.getHighestTrackableValue()));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public Summary summarize(String endpoint, double seconds) {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+        long total = latencies.getTotalCount();
+        long errors = byStatus.entrySet().stream()
+                .filter(e -> e.getKey() == 0 || e.getKey() >= 500)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        long rejected = byStatus.entrySet().stream()
+                .filter(e -> e.getKey() >= 400 && e.getKey() < 500)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return new Summary(endpoint, total, total / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                total == 0 ? 0 : (double) errors / total,
+                total == 0 ? 0 : (double) rejected / total,
+                byStatus);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Report line of one endpoint, latencies in milliseconds. Errors are 5xx
+     * responses and transport failures, rejections are 4xx responses.
+     */
+    public record Summary(
+            String endpoint,
+            long requests,
+            double throughput,
+            double p50,
+            double p90,
+            double p99,
+            double p999,
+            double max,
+            double errorRate,
+            double rejectRate,
+            Map<Integer, Long> statuses) {
+    }
+}
@@ -0,0 +1,215 @@
+package org.mindtocode.ecommercebackend.loadtest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mindtocode.ecommercebackend.SpringDataJpaApplication;
+import org.mindtocode.ecommercebackend.search.ProductSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * End-to-end load test. Starts the application on a random port against an
+ * embedded H2 (default), a Testcontainers PostgreSQL or a given database,
+ * seeds a catalog and users, runs a mixed workload over HTTP and finishes
+ * with an oversell check on a product with little stock. Prints a table per
+ * endpoint and writes the same numbers as JSON. The application keeps its
+ * own logging configuration, its console goes to a log file next to the
+ * results. Fails when the oversell check fails, a virtual user cannot log in
+ * or an endpoint's error rate is above {@code --max-error-percent}.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        PostgreSQLContainer container = null;
+        String jdbcUrl = options.jdbcUrl();
+        String dbUser = options.dbUser();
+        String dbPassword = options.dbPassword();
+        switch (options.database()) {
+            case "h2" -> {
+                jdbcUrl = "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+                dbUser = "sa";
+                dbPassword = "";
+            }
+            case "testcontainers" -> {
+                container = new PostgreSQLContainer("postgres:17-alpine");
+                container.start();
+                jdbcUrl = container.getJdbcUrl();
+                dbUser = container.getUsername();
+                dbPassword = container.getPassword();
+            }
+            case "postgres" -> {
+            }
+            default -> throw new IllegalArgumentException("--db must be h2, testcontainers or postgres");
+        }
+
+        Path images = Files.createTempDirectory("loadtest-images");
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "loadtest");
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", dbUser);
+        properties.put("spring.datasource.password", dbPassword);
+        properties.put("spring.jpa.hibernate.ddl-auto", options.ddlAuto());
+        properties.put("jwt.secret", "bG9hZHRlc3QtbG9hZHRlc3QtbG9hZHRlc3QtbG9hZHRlc3Qtc2VjcmV0");
+        properties.put("jwt.expiration", "3600000");
+        properties.put("jwt.refresh.expiration", "604800000");
+        properties.put("google.oauth.client-id", "loadtest");
+        properties.put("google.oauth.client-secret", "loadtest");
+        properties.put("image.storage.location", images.toString());
+        properties.putAll(options.appProperties());
+        List<String> springArgs = new ArrayList<>();
+        properties.forEach((name, value) -> springArgs.add("--" + name + "=" + value));
+
+        File output = new File(options.output() != null ? options.output() : "results/" + commit() + ".json");
+        if (output.getParentFile() != null) {
+            Files.createDirectories(output.getParentFile().toPath());
+        }
+        // the console appender writes to whatever System.out is, so the report keeps the terminal
+        File appLog = new File(output.getPath().replaceFirst("\\.json$", "") + ".log");
+        PrintStream console = System.out;
+        PrintStream appOut = new PrintStream(new FileOutputStream(appLog), true);
+        System.setOut(appOut);
+        console.println("Application log: " + appLog);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringDataJpaApplication.class)
+                .run(springArgs.toArray(String[]::new))) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Seeder seeder = new Seeder(context.getBean(JdbcTemplate.class), runId);
+            long seeding = System.nanoTime();
+            Seeder.Catalog catalog = seeder.seed(options.products(), options.users(), options.hotStock(),
+                    context.getBean(PasswordEncoder.class));
+            context.getBean(ProductSearchIndex.class).rebuild();
+            console.printf("Seeded %d products and %d users in %d ms, %s%n", options.products(), options.users(),
+                    (System.nanoTime() - seeding) / 1_000_000, baseUrl);
+
+            Workload workload = new Workload(baseUrl, catalog);
+            console.printf("Running %d users for %s after %s warm-up, mix %s%n", options.concurrency(),
+                    options.duration(), options.warmup(), options.mix());
+            workload.run(options.concurrency(), options.mix(), options.warmup(), options.duration());
+            Workload.Rush rush = workload.rushHotProduct(options.hotBuyers());
+
+            int finalStock = seeder.stockOf(catalog.hotProductId());
+            int ordered = seeder.orderedQuantityOf(catalog.hotProductId());
+            // every buyer is served until the stock runs out, and nobody fails for another reason
+            int expected = Math.min(catalog.hotStock(), options.hotBuyers());
+            OversellCheck oversell = new OversellCheck(catalog.hotStock(), options.hotBuyers(), expected,
+                    rush.accepted(), rush.outOfStock(), rush.failed(), ordered, finalStock,
+                    rush.accepted() == expected && rush.failed() == 0 && ordered == rush.accepted()
+                            && catalog.hotStock() - finalStock == ordered && finalStock >= 0);
+
+            double seconds = options.duration().toMillis() / 1000.0;
+            List<EndpointStats.Summary> endpoints = new ArrayList<>();
+            workload.stats().forEach((endpoint, stats) -> {
+                EndpointStats.Summary summary = stats.summarize(endpoint,
+                        endpoint.equals("order-hot") ? workload.rushSeconds() : seconds);
+                if (summary.requests() > 0) {
+                    endpoints.add(summary);
+                }
+            });
+            Report report = new Report(commit(), Instant.now().toString(), options, endpoints,
+                workload.failedLogins(), oversell);
+            print(report, console);
+            write(report, output, console);
+
+            List<String> failures = new ArrayList<>();
+            if (!oversell.passed()) {
+                failures.add("oversell check failed: " + oversell);
+            }
+            if (report.failedLogins() > 0) {
+                failures.add(report.failedLogins() + " virtual users could not log in");
+            }
+            for (EndpointStats.Summary s : endpoints) {
+                if (s.errorRate() * 100 > options.maxErrorPercent()) {
+                    failures.add(String.format("%s error rate %.2f%% is above %.2f%%", s.endpoint(),
+                            s.errorRate() * 100, options.maxErrorPercent()));
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Load test failed: " + String.join("; ", failures));
+            }
+        } finally {
+            System.setOut(console);
+            appOut.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    private static void print(Report report, PrintStream out) {
+        out.printf("%n%-10s %9s %9s %9s %9s %9s %9s %9s %7s %7s  %s%n", "endpoint", "requests", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "err %", "4xx %", "statuses");
+        for (EndpointStats.Summary s : report.endpoints()) {
+            out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7.2f %7.2f  %s%n", s.endpoint(),
+                    s.requests(), s.throughput(), s.p50(), s.p90(), s.p99(), s.p999(), s.max(), s.errorRate() * 100,
+                    s.rejectRate() * 100, s.statuses());
+        }
+        if (report.failedLogins() > 0) {
+            out.printf("%n%d virtual users could not log in and sent no requests%n", report.failedLogins());
+        }
+        OversellCheck o = report.oversell();
+        out.printf("%nOversell check: %d buyers for %d units, %d accepted (expected %d), %d out of stock, "
+                + "%d failed, %d ordered, %d left -> %s%n", o.buyers(), o.initialStock(), o.accepted(),
+                o.expectedAccepted(), o.outOfStock(), o.failed(), o.orderedQuantity(), o.finalStock(),
+                o.passed() ? "OK" : "FAILED");
+    }
+
+    private static void write(Report report, File file, PrintStream out) throws IOException {
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file, report);
+        out.println("Results written to " + file);
+    }
+
+    private static String commit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            String sha = new String(git.getInputStream().readAllBytes()).trim();
+            return git.waitFor() == 0 && !sha.isEmpty() ? sha : "local";
+        } catch (IOException | InterruptedException e) {
+            return "local";
+        }
+    }
+
+    /**
+     * Outcome of the concurrent orders on the hot product. Passes when
+     * exactly min(stock, buyers) orders were accepted, every other buyer was
+     * refused for lack of stock, each accepted order took one unit and stock
+     * never went below zero.
+     */
+    public record OversellCheck(
+            int initialStock,
+            int buyers,
+            int expectedAccepted,
+            int accepted,
+            int outOfStock,
+            int failed,
+            int orderedQuantity,
+            int finalStock,
+            boolean passed) {
+    }
+
+    public record Report(
+            String commit,
+            String finishedAt,
+            LoadTestOptions options,
+            List<EndpointStats.Summary> endpoints,
+            int failedLogins,
+            OversellCheck oversell) {
+    }
+}
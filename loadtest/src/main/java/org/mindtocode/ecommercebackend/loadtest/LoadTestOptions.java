@@ -0,0 +1,81 @@
+package org.mindtocode.ecommercebackend.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Command line options of the load test, given as {@code --name=value}.
+ * Options with a dot in the name, e.g. {@code --password-hashing.strength=10},
+ * are handed to the application as properties.
+ */
+public record LoadTestOptions(
+        String database,
+        String jdbcUrl,
+        String dbUser,
+        @JsonIgnore String dbPassword,
+        String ddlAuto,
+        int products,
+        int users,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        Map<String, Integer> mix,
+        int hotStock,
+        int hotBuyers,
+        double maxErrorPercent,
+        String output,
+        Map<String, String> appProperties) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String name = arg.substring(2, eq);
+            (name.contains(".") ? appProperties : values).put(name, arg.substring(eq + 1));
+        }
+        String database = values.getOrDefault("db", "h2");
+        String jdbcUrl = values.get("jdbc-url");
+        if (database.equals("postgres") && jdbcUrl == null) {
+            throw new IllegalArgumentException("--db=postgres needs --jdbc-url");
+        }
+        // never recreate the schema of a database we did not start ourselves
+        String ddlAuto = values.getOrDefault("ddl-auto", database.equals("postgres") ? "update" : "create");
+        return new LoadTestOptions(
+                database,
+                jdbcUrl,
+                values.getOrDefault("db-user", "postgres"),
+                values.getOrDefault("db-password", "postgres"),
+                ddlAuto,
+                Integer.parseInt(values.getOrDefault("products", "10000")),
+                Integer.parseInt(values.getOrDefault("users", "200")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                Duration.parse("PT" + values.getOrDefault("warmup", "10s")),
+                Duration.parse("PT" + values.getOrDefault("duration", "60s")),
+                parseMix(values.getOrDefault("mix", "products=50,search=25,order=15,login=10")),
+                Integer.parseInt(values.getOrDefault("hot-stock", "100")),
+                Integer.parseInt(values.getOrDefault("hot-buyers", "200")),
+                Double.parseDouble(values.getOrDefault("max-error-percent", "1")),
+                values.get("out"),
+                appProperties);
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.split("=");
+            String endpoint = kv[0].trim();
+            if (!Workload.ENDPOINTS.contains(endpoint)) {
+                throw new IllegalArgumentException("Unknown endpoint in --mix: " + endpoint);
+            }
+            mix.put(endpoint, Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,101 @@
+package org.mindtocode.ecommercebackend.loadtest;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Writes the catalog and the users a run works against with batched JDBC, so
+ * seeding a large catalog takes seconds rather than minutes of API calls.
+ * Rows are tagged with the run id and never clash with existing data.
+ */
+public class Seeder {
+
+    static final String[] BRANDS = { "Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne", "Hooli", "Vandelay" };
+    static final String[] CATEGORIES = { "Laptop", "Phone", "Headphones", "Camera", "Monitor", "Keyboard", "Watch",
+            "Tablet" };
+    static final String PASSWORD = "loadtest-password";
+    // plenty of stock so mixed-workload orders are never rejected for it
+    private static final int CATALOG_STOCK = 1_000_000;
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String runId;
+
+    public Seeder(JdbcTemplate jdbcTemplate, String runId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.runId = runId;
+    }
+
+    public Catalog seed(int products, int users, int hotStock, PasswordEncoder passwordEncoder) {
+        String tag = "loadtest " + runId;
+        Random random = new Random(42);
+        Timestamp released = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < products; i++) {
+            String brand = BRANDS[i % BRANDS.length];
+            String category = CATEGORIES[(i / BRANDS.length) % CATEGORIES.length];
+            BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(200_000), 2);
+            rows.add(new Object[] { brand + " " + category + " " + i, tag, brand, price, category, released,
+                    CATALOG_STOCK });
+            if (rows.size() == BATCH_SIZE) {
+                insertProducts(rows);
+                rows.clear();
+            }
+        }
+        rows.add(new Object[] { "Limited Edition Drop", tag + " hot", "Acme", BigDecimal.valueOf(9999, 2), "Watch",
+                released, hotStock });
+        insertProducts(rows);
+
+        List<Integer> productIds = jdbcTemplate.queryForList(
+                "SELECT id FROM product WHERE description = ? ORDER BY id", Integer.class, tag);
+        int hotProductId = jdbcTemplate.queryForObject(
+                "SELECT id FROM product WHERE description = ?", Integer.class, tag + " hot");
+
+        // one hash for everyone, hashing each user would dominate the seeding time
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<String> usernames = new ArrayList<>(users);
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String username = "lt-" + runId + "-" + i;
+            usernames.add(username);
+            userRows.add(new Object[] { username, hash });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, role) "
+                + "VALUES (nextval('users_seq'), ?, ?, 'USER')", userRows);
+        return new Catalog(productIds, hotProductId, hotStock, usernames);
+    }
+
+    private void insertProducts(List<Object[]> rows) {
+        // ids from the entity sequences, the columns have no default
+        jdbcTemplate.batchUpdate("INSERT INTO product (id, name, description, brand, price, category, "
+                + "released_date, product_available, stock_quantity) "
+                + "VALUES (nextval('product_seq'), ?, ?, ?, ?, ?, ?, true, ?)", rows);
+    }
+
+    public int stockOf(int productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM product WHERE id = ?", Integer.class,
+                productId);
+    }
+
+    public int orderedQuantityOf(int productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM order_item WHERE product_id = ?", Integer.class, productId);
+    }
+
+    /**
+     * What a run was seeded with. The hot product is not part of
+     * {@code productIds}, it is only ordered in the oversell check.
+     */
+    public record Catalog(
+            List<Integer> productIds,
+            int hotProductId,
+            int hotStock,
+            List<String> usernames) {
+    }
+}
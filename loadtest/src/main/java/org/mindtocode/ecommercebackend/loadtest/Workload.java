@@ -0,0 +1,259 @@
+package org.mindtocode.ecommercebackend.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mindtocode.ecommercebackend.model.dto.AuthResponse;
+import org.mindtocode.ecommercebackend.model.dto.LoginRequest;
+import org.mindtocode.ecommercebackend.model.dto.OrderItemRequest;
+import org.mindtocode.ecommercebackend.model.dto.OrderRequest;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Virtual users driving the API over HTTP. Each user logs in once and then
+ * picks endpoints at random, weighted by the configured mix, until the
+ * deadline. Only requests issued after the warm-up are recorded. A user
+ * whose first login fails is counted and sends nothing.
+ */
+public class Workload {
+
+    static final List<String> ENDPOINTS = List.of("products", "search", "order", "login");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // error field GlobalExceptionHandler gives a ProductOutOfStockException
+    private static final String OUT_OF_STOCK = "Product Out Of Stock";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final String baseUrl;
+    private final Seeder.Catalog catalog;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final AtomicInteger failedLogins = new AtomicInteger();
+    private volatile double rushSeconds;
+
+    public Workload(String baseUrl, Seeder.Catalog catalog) {
+        this.baseUrl = baseUrl;
+        this.catalog = catalog;
+        ENDPOINTS.forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+        stats.put("order-hot", new EndpointStats());
+    }
+
+    public Map<String, EndpointStats> stats() {
+        return stats;
+    }
+
+    /**
+     * Wall time of the oversell rush, the window its throughput is measured in.
+     */
+    public double rushSeconds() {
+        return rushSeconds;
+    }
+
+    /**
+     * Virtual users of the mixed run that never got a token.
+     */
+    public int failedLogins() {
+        return failedLogins.get();
+    }
+
+    public void run(int concurrency, Map<String, Integer> mix, Duration warmup, Duration duration)
+            throws InterruptedException {
+        String[] wheel = weightedWheel(mix);
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long deadline = recordFrom + duration.toNanos();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < concurrency; u++) {
+                String username = catalog.usernames().get(u % catalog.usernames().size());
+                users.submit(() -> {
+                    String token = login(username, null);
+                    if (token == null) {
+                        failedLogins.incrementAndGet();
+                        return null;
+                    }
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String endpoint = wheel[random.nextInt(wheel.length)];
+                        EndpointStats target = System.nanoTime() >= recordFrom ? stats.get(endpoint) : null;
+                        switch (endpoint) {
+                            case "products" -> send(get("/api/products?page=" + random.nextInt(100) + "&size=20"),
+                                    target);
+                            case "search" -> send(get("/api/products/search?size=20&keyword="
+                                    + URLEncoder.encode(keyword(random), StandardCharsets.UTF_8)), target);
+                            case "order" -> send(placeOrder(token, randomItems(random)), target);
+                            case "login" -> login(catalog.usernames().get(random.nextInt(catalog.usernames().size())),
+                                    target);
+                            default -> throw new IllegalStateException(endpoint);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Fires {@code buyers} single-unit orders for the hot product at once.
+     * Buyers that cannot log in and orders failing for any reason other than
+     * stock are counted as failed.
+     */
+    public Rush rushHotProduct(int buyers) throws InterruptedException {
+        List<String> tokens = new ArrayList<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < buyers; i++) {
+            String token = login(catalog.usernames().get(i % catalog.usernames().size()), null);
+            if (token == null) {
+                failed.incrementAndGet();
+            } else {
+                tokens.add(token);
+            }
+        }
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<OrderItemRequest> items = List.of(new OrderItemRequest(catalog.hotProductId(), 1));
+        long begin = System.nanoTime();
+        try (ExecutorService rush = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String token : tokens) {
+                rush.submit(() -> {
+                    gate.await();
+                    HttpResponse<String> response = exchange(placeOrder(token, items), stats.get("order-hot"));
+                    int status = response != null ? response.statusCode() : 0;
+                    if (status / 100 == 2) {
+                        accepted.incrementAndGet();
+                    } else if (status == 400 && response.body().contains(OUT_OF_STOCK)) {
+                        outOfStock.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            gate.countDown();
+        }
+        rushSeconds = (System.nanoTime() - begin) / 1e9;
+        return new Rush(accepted.get(), outOfStock.get(), failed.get());
+    }
+
+    private String login(String username, EndpointStats target) {
+        HttpResponse<String> response = exchange(
+                post("/api/auth/login", new LoginRequest(username, Seeder.PASSWORD), null), target);
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        return jsonMapper.readValue(response.body(), AuthResponse.class).accessToken();
+    }
+
+    // like send, but keeps the body; null when no response arrived
+    private HttpResponse<String> exchange(HttpRequest request, EndpointStats target) {
+        long begin = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            record(target, response.statusCode(), begin);
+            return response;
+        } catch (IOException e) {
+            record(target, 0, begin);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private int send(HttpRequest request, EndpointStats target) {
+        long begin = System.nanoTime();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            record(target, status, begin);
+            return status;
+        } catch (IOException e) {
+            record(target, 0, begin);
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private static void record(EndpointStats target, int status, long begin) {
+        if (target != null) {
+            target.record(status, (System.nanoTime() - begin) / 1000);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest placeOrder(String token, List<OrderItemRequest> items) {
+        return post("/api/orders/place", new OrderRequest("Load Test", "loadtest@example.com", items), token);
+    }
+
+    private HttpRequest post(String path, Object body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonMapper.writeValueAsString(body)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private List<OrderItemRequest> randomItems(ThreadLocalRandom random) {
+        int lines = 1 + random.nextInt(3);
+        Map<Integer, OrderItemRequest> items = new LinkedHashMap<>();
+        while (items.size() < lines) {
+            int productId = catalog.productIds().get(random.nextInt(catalog.productIds().size()));
+            items.put(productId, new OrderItemRequest(productId, 1 + random.nextInt(2)));
+        }
+        return List.copyOf(items.values());
+    }
+
+    private static String keyword(ThreadLocalRandom random) {
+        return random.nextBoolean()
+                ? Seeder.BRANDS[random.nextInt(Seeder.BRANDS.length)]
+                : Seeder.CATEGORIES[random.nextInt(Seeder.CATEGORIES.length)];
+    }
+
+    private static String[] weightedWheel(Map<String, Integer> mix) {
+        List<String> wheel = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(endpoint);
+            }
+        });
+        if (wheel.isEmpty()) {
+            throw new IllegalArgumentException("--mix must give at least one endpoint a positive weight");
+        }
+        return wheel.toArray(String[]::new);
+    }
+
+    /**
+     * Outcome of the hot product rush: orders accepted, orders refused for
+     * lack of stock, and buyers that failed any other way.
+     */
+    public record Rush(
+            int accepted,
+            int outOfStock,
+            int failed) {
+    }
+}
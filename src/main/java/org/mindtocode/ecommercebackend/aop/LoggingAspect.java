@@ -1,32 +1,147 @@
 package org.mindtocode.ecommercebackend.aop;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Hibernate;
+import org.mindtocode.ecommercebackend.config.CallLoggingProperties;
+import org.mindtocode.ecommercebackend.model.dto.CursorPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedModel;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
 
+/**
+ * Logs service calls with their arguments and result. Successful calls are
+ * sampled per method (call-logging.*), failures are always logged. Arguments
+ * are only rendered for calls that are actually logged, and are rendered as
+ * short summaries: files, byte arrays and pages by size, entities by type and
+ * id, secrets redacted, everything else cut at call-logging.max-value-length.
+ * Rendering never fails the call it logs.
+ */
 @Component
 @Aspect
 public class LoggingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
-    @Before("execution(* org.mindtocode.ecommercebackend.service.*.*(..))")
-    public void logBefore(JoinPoint joinPoint) {
-        logger.info("Method {} is called with arguments: {}", joinPoint.getSignature().getName(), joinPoint.getArgs());
+    private static final String REDACTED = "***";
+    // Parameters whose values are never logged
+    private static final Pattern SECRET_PARAMETER = Pattern.compile("(?i).*(password|secret|token|code).*");
+    // Secrets inside toString() output, e.g. User(password=...)
+    private static final Pattern SECRET_FIELD = Pattern
+            .compile("(?i)((?:password|secret|token)[a-z]*=)[^,)\\]}]*");
+
+    @Autowired
+    private CallLoggingProperties callLoggingProperties;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final Map<Method, Double> sampleRates = new ConcurrentHashMap<>();
+
+    @Around("execution(* org.mindtocode.ecommercebackend.service.*.*(..))")
+    public Object logCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Exception exception) {
+            logger.error("Method {} threw an exception: {}", signature.getName(), exception.getMessage());
+            throw exception;
+        }
+        if (logger.isInfoEnabled() && sampled(signature.getMethod())) {
+            logger.info("Method {} called with arguments: {} returned: {}", signature.getName(),
+                    renderArguments(signature.getParameterNames(), joinPoint.getArgs()), render(result));
+        }
+        return result;
+    }
+
+    private boolean sampled(Method method) {
+        double rate = sampleRates.computeIfAbsent(method, this::sampleRate);
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private double sampleRate(Method method) {
+        String className = method.getDeclaringClass().getSimpleName();
+        Map<String, Double> methods = callLoggingProperties.getMethods();
+        Double rate = methods.get(className + "." + method.getName());
+        if (rate == null) {
+            rate = methods.get(className);
+        }
+        return rate != null ? rate : callLoggingProperties.getSampleRate();
+    }
+
+    private String renderArguments(String[] names, Object[] args) {
+        StringBuilder rendered = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                rendered.append(", ");
+            }
+            boolean secret = names != null && SECRET_PARAMETER.matcher(names[i]).matches();
+            rendered.append(secret && args[i] != null ? REDACTED : render(args[i]));
+        }
+        return rendered.append(']').toString();
     }
 
-    @AfterReturning(pointcut = "execution(* org.mindtocode.ecommercebackend.service.*.*(..))", returning = "result")
-    public void logAfterReturning(JoinPoint joinPoint, Object result) {
-        logger.info("Method {} returned: {}", joinPoint.getSignature().getName(), result);
+    private String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        try {
+            return summarize(value);
+        } catch (Throwable e) {
+            // e.g. a toString() that throws or recurses through a two-way association
+            return value.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(value));
+        }
     }
 
-    @AfterThrowing(pointcut = "execution(* org.mindtocode.ecommercebackend.service.*.*(..))", throwing = "exception")
-    public void logAfterThrowing(JoinPoint joinPoint, Exception exception) {
-        logger.error("Method {} threw an exception: {}", joinPoint.getSignature().getName(), exception.getMessage());
+    private String summarize(Object value) {
+        if (value instanceof MultipartFile file) {
+            return "MultipartFile[" + file.getOriginalFilename() + ", " + file.getSize() + " bytes]";
+        }
+        if (value instanceof byte[] bytes) {
+            return "byte[" + bytes.length + "]";
+        }
+        if (value instanceof InputStream) {
+            return value.getClass().getSimpleName();
+        }
+        if (value instanceof Collection<?> collection) {
+            return value.getClass().getSimpleName() + "[size=" + collection.size() + "]";
+        }
+        if (value instanceof Slice<?> slice) {
+            return "Page[number=" + slice.getNumber() + ", elements=" + slice.getNumberOfElements() + "]";
+        }
+        if (value instanceof PagedModel<?> page) {
+            return "PagedModel[number=" + (page.getMetadata() != null ? page.getMetadata().number() : 0)
+                    + ", elements=" + page.getContent().size() + "]";
+        }
+        if (value instanceof CursorPage<?> page) {
+            return "CursorPage[elements=" + page.content().size() + ", next=" + (page.nextCursor() != null) + "]";
+        }
+        if (Hibernate.getClassLazy(value).isAnnotationPresent(Entity.class)) {
+            // toString() of an entity can load lazy associations or recurse, the id is enough
+            return Hibernate.getClassLazy(value).getSimpleName() + "#"
+                    + entityManagerFactory.getPersistenceUnitUtil().getIdentifier(value);
+        }
+        String text = SECRET_FIELD.matcher(String.valueOf(value)).replaceAll("$1" + REDACTED);
+        int maxLength = callLoggingProperties.getMaxValueLength();
+        return text.length() <= maxLength ? text
+                : text.substring(0, maxLength) + "...(" + text.length() + " chars)";
     }
 }
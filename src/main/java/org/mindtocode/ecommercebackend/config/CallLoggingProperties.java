@@ -0,0 +1,24 @@
+package org.mindtocode.ecommercebackend.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "call-logging")
+@Getter
+@Setter
+public class CallLoggingProperties {
+
+    // Share of successful service calls logged, failures are always logged
+    private double sampleRate = 1.0;
+    // Rates for single classes or methods, keyed "ProductService" or "ProductService.getAll"
+    private Map<String, Double> methods = new HashMap<>();
+    // Longest rendering of one argument or return value before it is cut
+    private int maxValueLength = 200;
+}
@@ -0,0 +1,34 @@
+package org.mindtocode.ecommercebackend.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@Configuration
+public class HttpCacheConfig {
+
+    /**
+     * Strong ETags from a hash of the JSON body for the catalog read endpoints,
+     * answering a matching If-None-Match with 304 and no body. Hashing the body
+     * rather than an entity version keeps the tag correct when stock changes
+     * through plain SQL updates. The query and serialization still run on a
+     * match, so this saves bandwidth, not work. Images are skipped, they set their own tags
+     * and the buffering wrapper would break sendfile.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> catalogEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(
+                new ShallowEtagHeaderFilter() {
+                    @Override
+                    protected boolean shouldNotFilter(HttpServletRequest request) {
+                        return request.getRequestURI().endsWith("/image");
+                    }
+                });
+        registration.addUrlPatterns("/api/product/*", "/api/products", "/api/products/search",
+                "/api/products/scroll");
+        return registration;
+    }
+}
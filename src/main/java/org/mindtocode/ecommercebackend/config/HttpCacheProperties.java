@@ -0,0 +1,25 @@
+package org.mindtocode.ecommercebackend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "http-cache")
+@Getter
+@Setter
+public class HttpCacheProperties {
+
+    // How long browsers and CDNs may reuse a product image before revalidating
+    private Duration imageMaxAge = Duration.ofHours(1);
+
+    // Same for a single product, 0 means revalidate on every use (stock changes often)
+    private Duration productMaxAge = Duration.ZERO;
+
+    // Same for listing, search and scroll pages
+    private Duration listingMaxAge = Duration.ZERO;
+}
@@ -0,0 +1,25 @@
+package org.mindtocode.ecommercebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "image.storage")
+@Getter
+@Setter
+public class ImageStorageProperties {
+
+    // Root directory of the content-addressed image store
+    private String location = "data/images";
+
+    // Largest image accepted, uploads are cut off as soon as they pass it
+    private DataSize maxSize = DataSize.ofMegabytes(10);
+
+    // Copy image_data rows left over from the old @Lob column into the store on
+    // startup
+    private boolean migrateLegacy = false;
+}
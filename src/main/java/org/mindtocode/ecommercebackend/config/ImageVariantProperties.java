@@ -0,0 +1,25 @@
+package org.mindtocode.ecommercebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "image.variants")
+@Getter
+@Setter
+public class ImageVariantProperties {
+
+    // Longest side in pixels of the thumbnail variant, sized for catalog tiles
+    private int thumbnailSize = 200;
+    // Longest side in pixels of the medium variant, sized for product pages
+    private int mediumSize = 800;
+    // JPEG quality of the variants, 0.0 to 1.0
+    private float quality = 0.8f;
+    // Threads rendering variants, the work is CPU bound
+    private int threads = 1;
+    // Images waiting for a thread, further uploads are served as originals until requested again
+    private int queueCapacity = 100;
+}
@@ -0,0 +1,21 @@
+package org.mindtocode.ecommercebackend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "inventory")
+@Getter
+@Setter
+public class InventoryProperties {
+
+    // Reserve stock in memory before touching the product row
+    private boolean ledgerEnabled = true;
+    // How often ledger counters are re-read from product.stock_quantity
+    private Duration reconcileInterval = Duration.ofSeconds(5);
+}
@@ -2,7 +2,10 @@ package org.mindtocode.ecommercebackend.config;
 
 import java.io.IOException;
 
+import org.mindtocode.ecommercebackend.model.Role;
+import org.mindtocode.ecommercebackend.model.UserPrinciple;
 import org.mindtocode.ecommercebackend.service.JwtService;
+import org.mindtocode.ecommercebackend.service.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,6 +15,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,15 +30,25 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private JwtProperties jwtProperties;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         if (request.getHeader("Authorization") != null && request.getHeader("Authorization").startsWith("Bearer ")) {
             String accessToken = request.getHeader("Authorization").substring(7);
-            String username = jwtService.extractUsername(accessToken);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.validateToken(accessToken, userDetails)) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // verified once, subject and expiry come from the same parse
+                VerifiedToken token;
+                try {
+                    token = jwtService.verify(accessToken);
+                } catch (JwtException | IllegalArgumentException e) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                UserDetails userDetails = getUserDetails(token);
+                if (token.subject().equals(userDetails.getUsername()) && !token.isExpired()) {
                     UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -46,4 +60,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails getUserDetails(VerifiedToken token) {
+        // stateless mode trusts the signed claims, older tokens without them are looked up
+        if (jwtProperties.isStateless() && token.role() != null) {
+            return new UserPrinciple(token.userId(), token.subject(), null, Role.valueOf(token.role()));
+        }
+        return userDetailsService.loadUserByUsername(token.subject());
+    }
+
 }
@@ -1,4 +1,7 @@
 package org.mindtocode.ecommercebackend.config;
+
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +16,27 @@ public class JwtProperties {
 
     private String secret;
     private long expiration;
+    // Authenticate from the role/uid claims alone, without loading the user per request
+    private boolean stateless = false;
     private Refresh refresh;
+    private Cache cache = new Cache();
 
     @Getter
     @Setter
     public static class Refresh {
         private long expiration;
+        // Sessions kept per user, logging in again ends the oldest one
+        private int maxPerUser = 10;
+        // Expired tokens deleted per purge transaction
+        private int purgeBatchSize = 1000;
+        // How often expired tokens are purged
+        private Duration purgeInterval = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        // Verified tokens kept to skip signature checks on repeat requests
+        private long maximumSize = 10_000;
     }
 }
@@ -0,0 +1,23 @@
+package org.mindtocode.ecommercebackend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "oauth2.state")
+@Getter
+@Setter
+public class OAuth2StateProperties {
+
+    // memory keeps states in this instance, jdbc shares them between instances through the database
+    private String store = "memory";
+    // How long a login flow may take between authorize and callback
+    private Duration ttl = Duration.ofMinutes(5);
+    // Upper bound on pending flows held in memory, further authorize calls get 503
+    private int maxEntries = 100_000;
+}
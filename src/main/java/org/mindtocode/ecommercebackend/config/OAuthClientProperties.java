@@ -0,0 +1,30 @@
+package org.mindtocode.ecommercebackend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "oauth.client")
+@Getter
+@Setter
+public class OAuthClientProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    // Maximum wait for response data once a request has been sent
+    private Duration readTimeout = Duration.ofSeconds(5);
+    // Maximum wait for a free pooled connection
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+    private int maxConnections = 50;
+    private int maxConnectionsPerRoute = 20;
+    // Provider calls in flight at once, further callbacks get 503 straight away
+    private int maxConcurrentCalls = 20;
+    // Consecutive failures that open the circuit to a provider
+    private int failureThreshold = 5;
+    // How long an open circuit rejects calls before letting one trial call through
+    private Duration openDuration = Duration.ofSeconds(30);
+}
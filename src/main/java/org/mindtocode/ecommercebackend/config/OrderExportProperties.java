@@ -0,0 +1,17 @@
+package org.mindtocode.ecommercebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "order-export")
+@Getter
+@Setter
+public class OrderExportProperties {
+
+    // Rows the JDBC driver fetches per round trip while the export cursor is open
+    private int fetchSize = 1000;
+}
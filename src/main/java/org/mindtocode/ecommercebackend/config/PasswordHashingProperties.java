@@ -0,0 +1,21 @@
+package org.mindtocode.ecommercebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "password-hashing")
+@Getter
+@Setter
+public class PasswordHashingProperties {
+
+    // BCrypt cost, stored hashes with a lower cost are rehashed on the next login
+    private int strength = 12;
+    // Threads hashing at the same time, each one keeps a core busy for the whole hash
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Hashes allowed to wait for a thread before requests are turned away with 503
+    private int queueCapacity = 64;
+}
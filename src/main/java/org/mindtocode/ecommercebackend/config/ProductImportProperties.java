@@ -0,0 +1,23 @@
+package org.mindtocode.ecommercebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "product-import")
+@Getter
+@Setter
+public class ProductImportProperties {
+
+    // Rows written and committed together
+    private int batchSize = 5000;
+    // Use PostgreSQL COPY for each batch when the database supports it
+    private boolean copyEnabled = true;
+    // Row errors listed in the response, further ones are only counted
+    private int maxReportedErrors = 100;
+    // Longest CSV record or NDJSON line, a longer one ends the import
+    private int maxRecordLength = 64 * 1024;
+}
@@ -1,14 +1,71 @@
 package org.mindtocode.ecommercebackend.config;
 
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.mindtocode.ecommercebackend.service.GoogleOAuthService;
+import org.mindtocode.ecommercebackend.service.ResilientOAuthService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class RestTemplateConfig {
 
+    // Pooled connections unused for this long are closed instead of reused
+    private static final long IDLE_EVICT_SECONDS = 30;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(OAuthClientProperties properties) {
+        return createHttpClient(properties);
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Google OAuth calls behind a circuit breaker and bulkhead, used by
+     * AuthController instead of GoogleOAuthService itself
+     */
+    @Bean
+    public ResilientOAuthService googleOAuthClient(GoogleOAuthService googleOAuthService,
+            OAuthClientProperties properties, MeterRegistry meterRegistry) {
+        return new ResilientOAuthService("google", googleOAuthService, properties, meterRegistry);
+    }
+
+    /**
+     * Keep-alive connection pool with connect, read and pool-wait timeouts, so
+     * a slow provider can hold a request thread for a bounded time only
+     */
+    public static CloseableHttpClient createHttpClient(OAuthClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(IDLE_EVICT_SECONDS, TimeUnit.SECONDS))
+                .evictExpiredConnections()
+                .build();
     }
 }
@@ -0,0 +1,20 @@
+package org.mindtocode.ecommercebackend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "user-cache")
+@Getter
+@Setter
+public class UserCacheProperties {
+
+    private long maximumSize = 10_000;
+    // Upper bound on how long a role change or deletion made outside AuthService goes unnoticed
+    private Duration ttl = Duration.ofSeconds(30);
+}
@@ -5,12 +5,13 @@ import java.util.UUID;
 
 import org.mindtocode.ecommercebackend.config.GoogleOAuthProperties;
 import org.mindtocode.ecommercebackend.model.User;
+import org.mindtocode.ecommercebackend.model.UserPrinciple;
 import org.mindtocode.ecommercebackend.model.dto.AuthResponse;
 import org.mindtocode.ecommercebackend.model.dto.LoginRequest;
 import org.mindtocode.ecommercebackend.model.dto.OAuthUserInfo;
 import org.mindtocode.ecommercebackend.model.dto.RefreshTokenRequest;
 import org.mindtocode.ecommercebackend.service.AuthService;
-import org.mindtocode.ecommercebackend.service.GoogleOAuthService;
+import org.mindtocode.ecommercebackend.service.ResilientOAuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -47,7 +48,7 @@ public class AuthController {
     private JwtService jwtService;
 
     @Autowired
-    private GoogleOAuthService googleOAuthService;
+    private ResilientOAuthService googleOAuthClient;
 
     @Autowired
     private GoogleOAuthProperties googleOAuthProperties;
@@ -55,12 +56,7 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user) {
         User registeredUser = authService.register(user);
-        String accessToken = jwtService.generateToken(registeredUser.getUsername());
-        String refreshToken = jwtService.generateRefreshToken(registeredUser.getUsername());
-        authService.saveRefreshToken(registeredUser.getUsername(), refreshToken);
-        return ResponseEntity
-                .ok(new AuthResponse(accessToken, refreshToken, registeredUser.getUsername(),
-                        registeredUser.getRole().name()));
+        return ResponseEntity.ok(generateTokens(new UserPrinciple(registeredUser)));
     }
 
     @PostMapping("/login")
@@ -68,8 +64,8 @@ public class AuthController {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.username(), loginRequest.password()));
         if (authentication.isAuthenticated()) {
-            User user = authService.findByUsername(loginRequest.username());
-            AuthResponse authResponse = generateTokens(user);
+            // the principal the provider authenticated, no second lookup
+            AuthResponse authResponse = generateTokens((UserPrinciple) authentication.getPrincipal());
             return ResponseEntity.ok(authResponse);
         }
         return new ResponseEntity<>("Invalid credentials", HttpStatus.UNAUTHORIZED);
@@ -94,7 +90,7 @@ public class AuthController {
             }
 
             // Generate new access token and refresh token
-            AuthResponse authResponse = generateTokens(user);
+            AuthResponse authResponse = generateTokens(new UserPrinciple(user));
 
             // delete old refresh token
             authService.deleteRefreshToken(refreshToken);
@@ -122,9 +118,7 @@ public class AuthController {
             throws IOException {
         String state = UUID.randomUUID().toString();
 
-        // TODO: store state in Redis / DB with short TTL
-        // redis.set("oauth:state:" + state, true, 5 minutes)
-        // we gonna use postgres for now
+        // kept for oauth2.state.ttl, in memory unless oauth2.state.store=jdbc
         authService.saveOAuth2State(provider, state);
 
         String redirectUri = googleOAuthProperties.getCallbackUrl();
@@ -158,14 +152,10 @@ public class AuthController {
     @GetMapping("/oauth2/callback/{provider}")
     public ResponseEntity<?> oauth2Callback(@PathVariable String provider, @RequestParam String code,
             @RequestParam String state) {
-        // Validate state
-        // Boolean exists = redis.get("oauth:state:" + state)
-        // if (!exists) throw new RuntimeException("Invalid state");
-        boolean isValidState = authService.validateOAuth2State(provider, state);
+        // Validate state, a state is removed by the check so it cannot be replayed
+        boolean isValidState = authService.consumeOAuth2State(provider, state);
         if (!isValidState) {
             return new ResponseEntity<>("Invalid state", HttpStatus.UNAUTHORIZED);
-        } else {
-            authService.deleteOAuth2State(provider, state);
         }
         IOAuthService oauthService = _getOAuthService(provider);
 
@@ -185,16 +175,16 @@ public class AuthController {
                 userInfo);
 
         // Generate access token and refresh token
-        AuthResponse authResponse = generateTokens(user);
+        AuthResponse authResponse = generateTokens(new UserPrinciple(user));
         return ResponseEntity.ok(authResponse);
     }
 
-    private AuthResponse generateTokens(User user) {
+    private AuthResponse generateTokens(UserPrinciple user) {
         // Generate access token and refresh token
-        String accessToken = jwtService.generateToken(user.getUsername());
+        String accessToken = jwtService.generateToken(user);
         String refreshToken = jwtService.generateRefreshToken(user.getUsername());
         // Save refresh token to database
-        authService.saveRefreshToken(user.getUsername(), refreshToken);
+        authService.saveRefreshToken(user.getId(), refreshToken);
         // return auth response
         return new AuthResponse(accessToken, refreshToken, user.getUsername(),
                 user.getRole().name());
@@ -202,7 +192,7 @@ public class AuthController {
 
     private IOAuthService _getOAuthService(String provider) {
         return switch (provider) {
-            case "google" -> googleOAuthService;
+            case "google" -> googleOAuthClient;
             default -> throw new IllegalArgumentException("Invalid provider: " + provider);
         };
     }
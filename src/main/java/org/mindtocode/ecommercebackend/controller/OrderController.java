@@ -1,10 +1,18 @@
 package org.mindtocode.ecommercebackend.controller;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import org.mindtocode.ecommercebackend.model.dto.CursorPage;
 import org.mindtocode.ecommercebackend.model.dto.OrderRequest;
 import org.mindtocode.ecommercebackend.model.dto.OrderResponse;
+import org.mindtocode.ecommercebackend.service.OrderExportService;
 import org.mindtocode.ecommercebackend.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -15,6 +23,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("api/orders")
 @CrossOrigin(origins = "http://localhost:5173")
@@ -23,6 +33,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
     @PostMapping("/place")
     public ResponseEntity<OrderResponse> placeOrder(@RequestBody OrderRequest orderRequest) {
         return ResponseEntity.ok(orderService.placeOrder(orderRequest));
@@ -33,4 +46,31 @@ public class OrderController {
             @RequestParam(defaultValue = "5") int size) {
         return ResponseEntity.ok(orderService.getOrders(page, size));
     }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<OrderResponse>> scrollOrders(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(orderService.scrollOrders(cursor, size));
+    }
+
+    // Written straight to the response while the cursor is read, nothing is buffered
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format must be ndjson or csv");
+        }
+        String extension = exportFormat == OrderExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(exportFormat == OrderExportService.Format.CSV ? "text/csv;charset=UTF-8"
+                : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders-"
+                + (from != null ? from : "start") + "-" + (to != null ? to : "now") + "." + extension + "\"");
+        orderExportService.export(from, to, exportFormat, response.getOutputStream());
+    }
 }
@@ -1,24 +1,69 @@
 package org.mindtocode.ecommercebackend.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
 
+import org.mindtocode.ecommercebackend.config.HttpCacheProperties;
+import org.mindtocode.ecommercebackend.model.ImageVariant;
 import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.CursorPage;
+import org.mindtocode.ecommercebackend.model.dto.ProductImageRef;
+import org.mindtocode.ecommercebackend.model.dto.ProductImportResult;
+import org.mindtocode.ecommercebackend.model.dto.ProductSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.web.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.mindtocode.ecommercebackend.service.ImageStorageService;
+import org.mindtocode.ecommercebackend.service.ImageVariantService;
+import org.mindtocode.ecommercebackend.service.ProductImportService;
 import org.mindtocode.ecommercebackend.service.ProductService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("api/")
 @CrossOrigin(origins = "http://localhost:5173")
 public class ProductController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     ProductService productService;
 
+    @Autowired
+    ImageStorageService imageStorageService;
+
+    @Autowired
+    ProductImportService productImportService;
+
+    @Autowired
+    ImageVariantService imageVariantService;
+
+    @Autowired
+    HttpCacheProperties httpCacheProperties;
+
     @PostMapping("product")
     @PreAuthorize("hasRole('ADMIN')")
     ResponseEntity<?> create(@RequestPart Product product, @RequestPart MultipartFile imageFile) {
@@ -29,16 +74,38 @@ public class ProductController {
         }
     }
 
+    // The body is read as a stream, a catalog of any size is imported in constant memory
+    @PostMapping(value = "products/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    ResponseEntity<ProductImportResult> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importCsv(body));
+    }
+
+    @PostMapping(value = "products/import", consumes = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    ResponseEntity<ProductImportResult> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importNdjson(body));
+    }
+
     @GetMapping("products")
-    ResponseEntity<PagedModel<Product>> getAll(@RequestParam(defaultValue = "0") int page,
+    ResponseEntity<PagedModel<ProductSummary>> getAll(@RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size) {
-        return ResponseEntity.ok(productService.getAll(page, size));
+        return ResponseEntity.ok().cacheControl(cacheControl(httpCacheProperties.getListingMaxAge()))
+                .body(productService.getAll(page, size));
+    }
+
+    @GetMapping("products/scroll")
+    ResponseEntity<CursorPage<ProductSummary>> scroll(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok().cacheControl(cacheControl(httpCacheProperties.getListingMaxAge()))
+                .body(productService.scroll(cursor, size));
     }
 
     @GetMapping("products/search")
-    ResponseEntity<PagedModel<Product>> getByKeyword(@RequestParam(defaultValue = "0") int page,
+    ResponseEntity<PagedModel<ProductSummary>> getByKeyword(@RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size, @RequestParam String keyword) {
-        return ResponseEntity.ok(productService.getAll(page, size, keyword));
+        return ResponseEntity.ok().cacheControl(cacheControl(httpCacheProperties.getListingMaxAge()))
+                .body(productService.getAll(page, size, keyword));
     }
 
     @PutMapping("product")
@@ -63,15 +130,121 @@ public class ProductController {
         if (product == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().cacheControl(cacheControl(httpCacheProperties.getProductMaxAge())).body(product);
     }
 
     @GetMapping("product/{productId}/image")
-    ResponseEntity<byte[]> getImage(@PathVariable int productId) {
-        Product product = productService.getById(productId);
-        if (product == null) {
-            return ResponseEntity.notFound().build();
+    void getImage(@PathVariable int productId, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant variant = ImageVariant.fromParameter(size);
+        // two columns instead of the whole product, a revalidation is a key lookup and a stat
+        ProductImageRef stored = productService.getImage(productId);
+        if (stored == null || !imageStorageService.exists(stored.key())) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path image = imageStorageService.resolve(stored.key());
+        String contentType = stored.contentType() != null ? stored.contentType()
+                : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        // until the variant is rendered the original is served, so the URL always works
+        Path rendered = variant != null ? imageVariantService.find(stored.key(), variant) : null;
+        if (rendered != null) {
+            image = rendered;
+            contentType = MediaType.IMAGE_JPEG_VALUE;
+        }
+
+        // files are content-addressed and never rewritten, so the name is a strong validator
+        String etag = "\"" + image.getFileName() + "\"";
+        long lastModified = Files.getLastModifiedTime(image).toMillis();
+        // a stand-in original is revalidated so the variant replaces it once rendered
+        Duration maxAge = variant != null && rendered == null ? Duration.ZERO : httpCacheProperties.getImageMaxAge();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(maxAge).getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length;
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            HttpRange range = singleRange(request, etag, lastModified);
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length) + 1;
+                } catch (IllegalArgumentException e) {
+                    start = end;
+                }
+                // a range starting past the end matches no byte of this file
+                if (start >= end) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + (end - 1) + "/" + length);
+            } else {
+                response.setStatus(HttpStatus.OK.value());
+            }
+            response.setContentType(contentType);
+            response.setContentLengthLong(end - start);
+
+            // Let Tomcat hand the file to the kernel (sendfile) when the connector supports it
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, image.toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end);
+                return;
+            }
+
+            // Otherwise stream straight from the file channel, never holding the image on heap
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    /**
+     * The byte range to serve, or null for the whole file. Only a single range
+     * is served; several ranges, a malformed header or an If-Range naming an
+     * older version of the file all get the full image, as RFC 9110 allows.
+     */
+    private static HttpRange singleRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !HttpMethod.GET.matches(request.getMethod())) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"")) {
+                if (!ifRange.equals(etag)) {
+                    return null;
+                }
+            } else {
+                try {
+                    // HTTP dates have whole seconds
+                    if (request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 != lastModified / 1000) {
+                        return null;
+                    }
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
         }
-        return ResponseEntity.ok(product.getImageData());
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // public, since catalog responses are the same for every caller; 0 means revalidate on each use
+    private static CacheControl cacheControl(Duration maxAge) {
+        return maxAge.isZero() ? CacheControl.noCache().cachePublic() : CacheControl.maxAge(maxAge).cachePublic();
     }
 }
@@ -1,14 +1,19 @@
 package org.mindtocode.ecommercebackend.exceptions;
 
 import org.mindtocode.ecommercebackend.model.dto.ErrorResponse;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +39,63 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
 
+        @ExceptionHandler(ServiceBusyException.class)
+        public ResponseEntity<ErrorResponse> handleServiceBusyException(ServiceBusyException ex) {
+                ErrorResponse errorResponse = new ErrorResponse(
+                                ex.getMessage(),
+                                "Service Busy",
+                                HttpStatus.SERVICE_UNAVAILABLE.value());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(errorResponse);
+        }
+
+        // No pooled connection within spring.datasource.hikari.connection-timeout,
+        // or the database is unreachable. Many more requests can wait on the pool
+        // with virtual threads, this keeps them from ending up as 500s.
+        @ExceptionHandler({ CannotCreateTransactionException.class, DataAccessResourceFailureException.class })
+        public ResponseEntity<ErrorResponse> handleDatabaseUnavailableException(RuntimeException ex) {
+                ErrorResponse errorResponse = new ErrorResponse(
+                                "Database is busy, please retry",
+                                "Service Busy",
+                                HttpStatus.SERVICE_UNAVAILABLE.value());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(errorResponse);
+        }
+
+        // The authentication provider wraps a failed user lookup, so a pool timeout
+        // during login arrives here rather than in the handler above
+        @ExceptionHandler(InternalAuthenticationServiceException.class)
+        public ResponseEntity<ErrorResponse> handleInternalAuthenticationServiceException(
+                        InternalAuthenticationServiceException ex) {
+                for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+                        if (cause instanceof CannotCreateTransactionException
+                                        || cause instanceof DataAccessResourceFailureException) {
+                                return handleDatabaseUnavailableException((RuntimeException) cause);
+                        }
+                }
+                return handleGenericException(ex);
+        }
+
+        @ExceptionHandler(InvalidImageException.class)
+        public ResponseEntity<ErrorResponse> handleInvalidImageException(InvalidImageException ex) {
+                ErrorResponse errorResponse = new ErrorResponse(
+                                ex.getMessage(),
+                                "Invalid Image",
+                                HttpStatus.BAD_REQUEST.value());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        @ExceptionHandler(MaxUploadSizeExceededException.class)
+        public ResponseEntity<ErrorResponse> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex) {
+                ErrorResponse errorResponse = new ErrorResponse(
+                                "Upload is larger than the allowed size",
+                                "Payload Too Large",
+                                HttpStatus.CONTENT_TOO_LARGE.value());
+                return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(errorResponse);
+        }
+
         @ExceptionHandler(MethodArgumentNotValidException.class)
         public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
                 Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,15 @@
+package org.mindtocode.ecommercebackend.exceptions;
+
+public class InvalidImageException extends RuntimeException {
+    public InvalidImageException(String message) {
+        super(message);
+    }
+
+    public InvalidImageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidImageException(Throwable cause) {
+        super(cause);
+    }
+}
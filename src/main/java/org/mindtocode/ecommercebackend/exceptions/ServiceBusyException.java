@@ -0,0 +1,15 @@
+package org.mindtocode.ecommercebackend.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+
+    public ServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ServiceBusyException(Throwable cause) {
+        super(cause);
+    }
+}
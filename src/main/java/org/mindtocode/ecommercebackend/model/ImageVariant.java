@@ -0,0 +1,27 @@
+package org.mindtocode.ecommercebackend.model;
+
+import java.util.Locale;
+
+/**
+ * Downscaled copies of a product image, picked with the size parameter of
+ * the image endpoint
+ */
+public enum ImageVariant {
+    THUMBNAIL,
+    MEDIUM;
+
+    /**
+     * @param size value of the size parameter
+     * @return the variant, or null for the original
+     */
+    public static ImageVariant fromParameter(String size) {
+        if (size == null || size.equalsIgnoreCase("original")) {
+            return null;
+        }
+        try {
+            return valueOf(size.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("size must be thumbnail, medium or original");
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package org.mindtocode.ecommercebackend.model;
 
+import java.util.Date;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,9 +15,12 @@ import lombok.NoArgsConstructor;
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = @Index(name = "idx_oauth2state_created_at", columnList = "created_at"))
 public class OAuth2State {
 
     @Id
     private String state;
     private String provider;
+    @Column(nullable = false)
+    private Date createdAt;
 }
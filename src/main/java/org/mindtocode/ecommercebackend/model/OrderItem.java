@@ -12,6 +12,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.SequenceGenerator;
 
 @Entity
 @NoArgsConstructor
@@ -20,9 +21,10 @@ import jakarta.persistence.FetchType;
 @Builder
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private int id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Product product;
     private int quantity;
     private BigDecimal totalPrice;
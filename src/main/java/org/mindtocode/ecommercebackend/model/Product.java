@@ -4,8 +4,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,12 +16,14 @@ import java.math.BigDecimal;
 import java.util.Date;
 
 @Entity
+@Table(indexes = @Index(name = "idx_product_released_date_id", columnList = "released_date, id"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Integer id;
     private String name;
     private String description;
@@ -31,8 +35,8 @@ public class Product {
     private Integer stockQuantity;
     private String imageName;
     private String imageType;
-    @Lob
-    private byte[] imageData;
+    // Content key of the image in ImageStorageService, bytes live outside the row
+    private String imageKey;
 
     @PrePersist
     protected void onCreate() {
@@ -1,21 +1,41 @@
 package org.mindtocode.ecommercebackend.model;
 
+import java.util.Date;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@Table(indexes = {
+        // purge scans expired rows, the per-user cap walks a user's tokens oldest first
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_refresh_token_user_created_at", columnList = "user_id, created_at")
+})
 public class RefreshToken {
+    // SHA-256 hex of the token, the token itself is never stored
     @Id
-    @Column(unique = true, nullable = false, length = 255)
-    private String token;
-    @ManyToOne
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+    // two-way link, generated toString/hashCode would recurse through it
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
+    @Column(nullable = false)
+    private Date expiresAt;
+    @Column(nullable = false)
+    private Date createdAt;
 }
@@ -8,28 +8,51 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-public class UserPrinciple implements UserDetails {
+/**
+ * Immutable snapshot of the fields authentication needs. Shared between
+ * threads through the user cache, so it never holds the JPA entity; code that
+ * persists something for the user loads a managed User by {@link #getId()}.
+ */
+public final class UserPrinciple implements UserDetails {
 
-    private User user;
+    private final Integer id;
+    private final String username;
+    private final String password;
+    private final Role role;
 
     public UserPrinciple(User user) {
-        this.user = user;
+        this(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    }
+
+    public UserPrinciple(Integer id, String username, String password, Role role) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         // Spring Security expects roles to have ROLE_ prefix for hasRole() method
-        return Collections.singleton(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+        return Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role.name()));
     }
 
     @Override
     public @Nullable String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
@@ -51,4 +74,10 @@ public class UserPrinciple implements UserDetails {
     public boolean isEnabled() {
         return true;
     }
+
+    @Override
+    public String toString() {
+        // never the password hash
+        return "UserPrinciple[id=" + id + ", username=" + username + ", role=" + role + "]";
+    }
 }
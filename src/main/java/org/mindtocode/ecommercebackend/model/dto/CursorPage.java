@@ -0,0 +1,13 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. nextCursor is null on the last
+ * slice, otherwise it is passed back as the cursor parameter to continue.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        String nextCursor) {
+
+}
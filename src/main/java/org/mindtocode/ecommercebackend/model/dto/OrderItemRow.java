@@ -0,0 +1,15 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Order item flattened with its product name, read in one query for a whole
+ * page of orders
+ */
+public record OrderItemRow(
+        long orderId,
+        String productName,
+        int quantity,
+        BigDecimal totalPrice) {
+
+}
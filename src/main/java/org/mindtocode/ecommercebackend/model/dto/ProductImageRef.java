@@ -0,0 +1,8 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+// Where a product's image lives in ImageStorageService, without loading the rest of the row
+public record ProductImageRef(
+        String key,
+        String contentType) {
+
+}
@@ -0,0 +1,7 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+public record ProductImportError(
+        long line,
+        String message) {
+
+}
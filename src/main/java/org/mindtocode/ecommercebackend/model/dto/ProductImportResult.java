@@ -0,0 +1,20 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows listed in errors were skipped, the others
+ * were written. errors holds at most product-import.max-reported-errors
+ * entries, failed counts all of them. completed is false when a record could
+ * not be read at all; the rows before it were imported and the last error
+ * says where the body was cut off.
+ */
+public record ProductImportResult(
+        boolean completed,
+        long rowsRead,
+        long imported,
+        long failed,
+        List<ProductImportError> errors,
+        long elapsedMillis) {
+
+}
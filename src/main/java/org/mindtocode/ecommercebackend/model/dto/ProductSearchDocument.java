@@ -0,0 +1,10 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+public record ProductSearchDocument(
+        Integer id,
+        String name,
+        String description,
+        String brand,
+        String category) {
+
+}
@@ -0,0 +1,19 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+public record ProductSummary(
+        Integer id,
+        String name,
+        String description,
+        String brand,
+        BigDecimal price,
+        String category,
+        Date releasedDate,
+        Boolean productAvailable,
+        Integer stockQuantity,
+        String imageUrl,
+        String thumbnailUrl) {
+
+}
@@ -0,0 +1,12 @@
+package org.mindtocode.ecommercebackend.model.dto;
+
+/**
+ * An image written to the image store. contentType is detected from the
+ * file's leading bytes, not taken from the upload.
+ */
+public record StoredImage(
+        String key,
+        String contentType,
+        long size) {
+
+}
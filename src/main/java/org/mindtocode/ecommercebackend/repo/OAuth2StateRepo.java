@@ -1,14 +1,25 @@
 package org.mindtocode.ecommercebackend.repo;
 
-import java.util.Optional;
+import java.util.Date;
 
 import org.mindtocode.ecommercebackend.model.OAuth2State;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface OAuth2StateRepo extends JpaRepository<OAuth2State, String> {
 
-    @Query("SELECT o FROM OAuth2State o WHERE o.provider = :provider AND o.state = :state")
-    Optional<OAuth2State> findProviderAndState(String provider, String state);
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OAuth2State o WHERE o.provider = :provider AND o.state = :state AND o.createdAt > :cutoff")
+    int deleteIssuedAfter(@Param("provider") String provider, @Param("state") String state,
+            @Param("cutoff") Date cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OAuth2State o WHERE o.createdAt <= :cutoff")
+    int deleteIssuedBefore(@Param("cutoff") Date cutoff);
 
 }
@@ -1,8 +1,27 @@
 package org.mindtocode.ecommercebackend.repo;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 import org.mindtocode.ecommercebackend.model.Order;
+import org.mindtocode.ecommercebackend.model.dto.OrderItemRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface OrderRepo extends JpaRepository<Order, Long> {
 
+    // Keyset pagination on (orderDate, id), served by idx_orders_order_date_id without OFFSET or count
+    @Query("SELECT o FROM orders o ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findLatest(Limit limit);
+
+    @Query("SELECT o FROM orders o WHERE (o.orderDate, o.id) < (:orderDate, :id) ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findBefore(@Param("orderDate") Date orderDate, @Param("id") long id, Limit limit);
+
+    // Items of a page of orders with only the product name, instead of loading each order's items and products
+    @Query("SELECT new org.mindtocode.ecommercebackend.model.dto.OrderItemRow(i.order.id, p.name, i.quantity, i.totalPrice) "
+            + "FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItemRow> findItemRows(@Param("orderIds") Collection<Long> orderIds);
 }
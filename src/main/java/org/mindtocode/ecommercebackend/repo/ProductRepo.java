@@ -1,6 +1,15 @@
 package org.mindtocode.ecommercebackend.repo;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.ProductImageRef;
+import org.mindtocode.ecommercebackend.model.dto.ProductSearchDocument;
+import org.mindtocode.ecommercebackend.model.dto.ProductSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,12 +18,50 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductRepo extends JpaRepository<Product, Integer> {
+public interface ProductRepo extends JpaRepository<Product, Integer>, ProductStockRepo {
+
+    // Catalog columns only, the image is exposed as a URL to the image endpoint
+    String SUMMARY = "new org.mindtocode.ecommercebackend.model.dto.ProductSummary(" +
+            "p.id, p.name, p.description, p.brand, p.price, p.category, " +
+            "p.releasedDate, p.productAvailable, p.stockQuantity, " +
+            "CASE WHEN p.imageKey IS NULL THEN NULL " +
+            "ELSE CONCAT('/api/product/', CAST(p.id AS String), '/image') END, " +
+            "CASE WHEN p.imageKey IS NULL THEN NULL " +
+            "ELSE CONCAT('/api/product/', CAST(p.id AS String), '/image?size=thumbnail') END)";
 
-    @Query("SELECT p FROM Product p WHERE " +
-            "lower(p.name) LIKE lower(Concat('%', :keyword, '%')) " +
+    String KEYWORD_FILTER = "lower(p.name) LIKE lower(Concat('%', :keyword, '%')) " +
             "or lower(p.description) LIKE lower(Concat('%', :keyword, '%')) " +
             "or lower(p.brand) LIKE lower(Concat('%', :keyword, '%')) " +
-            "or lower(p.category) LIKE lower(Concat('%', :keyword, '%')) ")
-    Page<Product> filterByKeyword(@Param("keyword") String keyword, Pageable pageable);
+            "or lower(p.category) LIKE lower(Concat('%', :keyword, '%')) ";
+
+    @Query(value = "SELECT " + SUMMARY + " FROM Product p",
+            countQuery = "SELECT count(p) FROM Product p")
+    Page<ProductSummary> findAllSummaries(Pageable pageable);
+
+    @Query(value = "SELECT " + SUMMARY + " FROM Product p WHERE " + KEYWORD_FILTER,
+            countQuery = "SELECT count(p) FROM Product p WHERE " + KEYWORD_FILTER)
+    Page<ProductSummary> filterSummariesByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    // Keyset pagination on (releasedDate, id), served by idx_product_released_date_id without OFFSET or count
+    @Query("SELECT " + SUMMARY + " FROM Product p ORDER BY p.releasedDate DESC, p.id DESC")
+    List<ProductSummary> findLatestSummaries(Limit limit);
+
+    @Query("SELECT " + SUMMARY + " FROM Product p " +
+            "WHERE (p.releasedDate, p.id) < (:releasedDate, :id) ORDER BY p.releasedDate DESC, p.id DESC")
+    List<ProductSummary> findSummariesBefore(@Param("releasedDate") Date releasedDate, @Param("id") int id,
+            Limit limit);
+
+    @Query("SELECT " + SUMMARY + " FROM Product p WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Image columns only, enough for the image endpoint to answer a conditional request
+    @Query("SELECT new org.mindtocode.ecommercebackend.model.dto.ProductImageRef(p.imageKey, p.imageType) " +
+            "FROM Product p WHERE p.id = :id")
+    Optional<ProductImageRef> findImageById(@Param("id") int id);
+
+    // Text columns of products after the given id, used to (re)build the search index in batches
+    @Query("SELECT new org.mindtocode.ecommercebackend.model.dto.ProductSearchDocument(" +
+            "p.id, p.name, p.description, p.brand, p.category) " +
+            "FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocuments(@Param("afterId") int afterId, Pageable pageable);
 }
@@ -0,0 +1,27 @@
+package org.mindtocode.ecommercebackend.repo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductStockRepo {
+
+    /**
+     * Decrement stock for several products in one JDBC batch. Each row is only
+     * updated if it still holds enough stock, so concurrent orders can never
+     * take a product below zero.
+     *
+     * @param quantities quantity to take per product id
+     * @return product ids whose row did not have enough stock (nothing was
+     *         taken from them)
+     */
+    List<Integer> decrementStock(Map<Integer, Integer> quantities);
+
+    /**
+     * Current stock of the given products, read straight from the table
+     *
+     * @param productIds product ids
+     * @return stock quantity per product id, missing products are left out
+     */
+    Map<Integer, Integer> findStock(Collection<Integer> productIds);
+}
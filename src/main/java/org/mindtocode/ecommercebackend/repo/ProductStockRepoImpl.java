@@ -0,0 +1,58 @@
+package org.mindtocode.ecommercebackend.repo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+public class ProductStockRepoImpl implements ProductStockRepo {
+
+    private static final String DECREMENT_STOCK = "UPDATE product SET stock_quantity = stock_quantity - ? "
+            + "WHERE id = ? AND stock_quantity >= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public List<Integer> decrementStock(Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        // lock rows in id order so two multi-item orders can't deadlock each other
+        List<Map.Entry<Integer, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setInt(2, line.getKey());
+            ps.setInt(3, line.getValue());
+        });
+        List<Integer> insufficient = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (counts[0][i] == 0) {
+                insufficient.add(lines.get(i).getKey());
+            }
+        }
+        return insufficient;
+    }
+
+    @Override
+    public Map<Integer, Integer> findStock(Collection<Integer> productIds) {
+        Map<Integer, Integer> stock = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return stock;
+        }
+        namedParameterJdbcTemplate.query("SELECT id, stock_quantity FROM product WHERE id IN (:ids)",
+                Map.of("ids", productIds), rs -> {
+                    stock.put(rs.getInt(1), rs.getInt(2));
+                });
+        return stock;
+    }
+}
@@ -1,8 +1,38 @@
 package org.mindtocode.ecommercebackend.repo;
 
+import java.util.Date;
+
 import org.mindtocode.ecommercebackend.model.RefreshToken;
+import org.mindtocode.ecommercebackend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RefreshTokenRepo extends JpaRepository<RefreshToken, String> {
 
+    @Query("SELECT t.user FROM RefreshToken t WHERE t.tokenHash = :tokenHash AND t.expiresAt > :now")
+    User findUserByTokenHash(@Param("tokenHash") String tokenHash, @Param("now") Date now);
+
+    /**
+     * Delete up to limit expired tokens in one short transaction
+     *
+     * @return number of rows deleted, less than limit once nothing is left
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_token WHERE token_hash IN "
+            + "(SELECT token_hash FROM refresh_token WHERE expires_at < :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpired(@Param("now") Date now, @Param("limit") int limit);
+
+    /**
+     * Keep only the newest tokens of a user, ending the oldest sessions
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_token WHERE user_id = :userId AND token_hash NOT IN "
+            + "(SELECT token_hash FROM refresh_token WHERE user_id = :userId "
+            + "ORDER BY created_at DESC, token_hash LIMIT :keep)", nativeQuery = true)
+    int deleteOldest(@Param("userId") int userId, @Param("keep") int keep);
 }
@@ -0,0 +1,300 @@
+package org.mindtocode.ecommercebackend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Term dictionary with primitive int postings lists and BM25 ranking.
+ * Not thread-safe, {@link ProductSearchIndex} guards it with a read/write lock.
+ */
+final class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Sorted so the last query term can be matched as a prefix
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    void add(int docId, Map<String, Integer> termFrequencies, int length) {
+        remove(docId);
+        if (termFrequencies.isEmpty()) {
+            return;
+        }
+        termFrequencies.forEach((term, frequency) -> dictionary.computeIfAbsent(term, t -> new Postings())
+                .add(docId, frequency));
+        documents.put(docId, new Document(termFrequencies.keySet().toArray(String[]::new), length));
+        totalLength += length;
+    }
+
+    void remove(int docId) {
+        Document document = documents.remove(docId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Postings postings = dictionary.get(term);
+            postings.remove(docId);
+            if (postings.size == 0) {
+                dictionary.remove(term);
+            }
+        }
+        totalLength -= document.length();
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    /**
+     * Match documents containing every query term (AND), the last term as a
+     * prefix, and return one page of ids ranked by BM25 score
+     */
+    SearchHits search(List<String> queryTerms, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        if (queryTerms.isEmpty() || documents.isEmpty()) {
+            return SearchHits.EMPTY;
+        }
+
+        List<int[]> docSets = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size(); i++) {
+            boolean last = i == queryTerms.size() - 1;
+            List<Postings> termPostings = lookup(queryTerms.get(i), last);
+            if (termPostings.isEmpty()) {
+                return SearchHits.EMPTY;
+            }
+            docSets.add(union(termPostings));
+        }
+
+        // Intersect the rarest terms first so candidates shrink as fast as possible
+        docSets.sort(Comparator.comparingInt(set -> set.length));
+        int[] candidates = docSets.get(0);
+        for (int i = 1; i < docSets.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, docSets.get(i));
+        }
+        if (candidates.length == 0) {
+            return SearchHits.EMPTY;
+        }
+
+        if (offset >= candidates.length || limit == 0) {
+            // past the last hit, only the total is needed
+            return new SearchHits(candidates.length, new int[0]);
+        }
+
+        double[] scores = score(candidates, queryTerms);
+        int[] ranked = topRanked(candidates, scores, (int) Math.min((long) offset + limit, candidates.length));
+        int from = Math.min(offset, ranked.length);
+        int[] page = new int[ranked.length - from];
+        for (int i = from; i < ranked.length; i++) {
+            page[i - from] = candidates[ranked[i]];
+        }
+        return new SearchHits(candidates.length, page);
+    }
+
+    private List<Postings> lookup(String term, boolean prefix) {
+        if (!prefix) {
+            Postings postings = dictionary.get(term);
+            return postings == null ? List.of() : List.of(postings);
+        }
+        // every expansion counts, so total and ranking do not depend on dictionary order
+        return new ArrayList<>(dictionary.subMap(term, true, term + Character.MAX_VALUE, false).values());
+    }
+
+    private double[] score(int[] candidates, List<String> queryTerms) {
+        double n = documents.size();
+        double averageLength = (double) totalLength / n;
+        double[] scores = new double[candidates.length];
+        for (int t = 0; t < queryTerms.size(); t++) {
+            String term = queryTerms.get(t);
+            if (t < queryTerms.size() - 1) {
+                Postings postings = dictionary.get(term);
+                for (int i = 0; i < candidates.length; i++) {
+                    scores[i] += bm25(postings, candidates[i], n, averageLength);
+                }
+                continue;
+            }
+            // a short prefix can expand to thousands of terms, so walk each
+            // candidate's own terms instead of every expansion's postings
+            for (int i = 0; i < candidates.length; i++) {
+                for (String docTerm : documents.get(candidates[i]).terms()) {
+                    if (docTerm.startsWith(term)) {
+                        scores[i] += bm25(dictionary.get(docTerm), candidates[i], n, averageLength);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    private double bm25(Postings postings, int docId, double n, double averageLength) {
+        int frequency = postings.frequency(docId);
+        if (frequency == 0) {
+            return 0;
+        }
+        double idf = Math.log(1 + (n - postings.size + 0.5) / (postings.size + 0.5));
+        double norm = K1 * (1 - B + B * documents.get(docId).length() / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    /**
+     * Indexes into candidates of the k best ranked, best first: highest score,
+     * then highest id. A bounded heap keeps the work at n log k for a page
+     * instead of sorting every match.
+     */
+    private static int[] topRanked(int[] candidates, double[] scores, int k) {
+        // min-heap on rank, the root is the worst of the best k seen so far
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < candidates.length && k > 0; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, candidates, scores);
+            } else if (ranksBefore(i, heap[0], candidates, scores)) {
+                heap[0] = i;
+                siftDown(heap, size, candidates, scores);
+            }
+        }
+        int[] ranked = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, candidates, scores);
+        }
+        return ranked;
+    }
+
+    private static boolean ranksBefore(int a, int b, int[] candidates, double[] scores) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : candidates[a] > candidates[b];
+    }
+
+    private static void siftUp(int[] heap, int index, int[] candidates, double[] scores) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksBefore(heap[parent], heap[index], candidates, scores)) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, int[] candidates, double[] scores) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (ranksBefore(heap[worst], heap[child], candidates, scores)) {
+                    worst = child;
+                }
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+
+    private static int[] union(List<Postings> termPostings) {
+        if (termPostings.size() == 1) {
+            Postings postings = termPostings.get(0);
+            return Arrays.copyOf(postings.docIds, postings.size);
+        }
+        int total = 0;
+        for (Postings postings : termPostings) {
+            total += postings.size;
+        }
+        int[] merged = new int[total];
+        int size = 0;
+        for (Postings postings : termPostings) {
+            System.arraycopy(postings.docIds, 0, merged, size, postings.size);
+            size += postings.size;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+
+    private static int[] intersect(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int size = 0;
+        int from = 0;
+        for (int docId : small) {
+            int index = Arrays.binarySearch(large, from, large.length, docId);
+            if (index >= 0) {
+                result[size++] = docId;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private record Document(String[] terms, int length) {
+    }
+
+    /**
+     * Doc ids sorted ascending with a parallel array of term frequencies
+     */
+    static final class Postings {
+        private int[] docIds = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int docId, int frequency) {
+            int index = Arrays.binarySearch(docIds, 0, size, docId);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            index = -index - 1;
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(docIds, index, docIds, index + 1, size - index);
+            System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+            docIds[index] = docId;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        void remove(int docId) {
+            int index = Arrays.binarySearch(docIds, 0, size, docId);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(docIds, index + 1, docIds, index, size - index - 1);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+            size--;
+        }
+
+        int frequency(int docId) {
+            int index = Arrays.binarySearch(docIds, 0, size, docId);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.mindtocode.ecommercebackend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.ProductSearchDocument;
+import org.mindtocode.ecommercebackend.repo.ProductRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process full-text index over product name, brand, category and
+ * description. Built from the product table once the application is ready and
+ * kept current by ProductService on create/update/delete. Until the first
+ * build finishes {@link #isReady()} is false and callers fall back to SQL.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    // Term frequency weights per field, a name match outranks a description match
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    // Writes that arrive while a rebuild is reading the table, replayed on swap
+    private List<Consumer<InvertedIndex>> pendingWrites;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex rebuilt = new InvertedIndex();
+        try {
+            int lastId = 0;
+            List<ProductSearchDocument> batch;
+            do {
+                batch = productRepo.findSearchDocuments(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (ProductSearchDocument document : batch) {
+                    add(rebuilt, document);
+                    lastId = document.id();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            logger.error("Building the product search index failed, search stays on SQL: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingWrites.forEach(write -> write.accept(rebuilt));
+            pendingWrites = null;
+            index = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Indexed {} products for search in {}ms", rebuilt.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        ProductSearchDocument document = new ProductSearchDocument(product.getId(), product.getName(),
+                product.getDescription(), product.getBrand(), product.getCategory());
+        lock.writeLock().lock();
+        try {
+            add(index, document);
+            if (pendingWrites != null) {
+                pendingWrites.add(target -> add(target, document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(productId);
+            if (pendingWrites != null) {
+                pendingWrites.add(target -> target.remove(productId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find products containing every term of the query, ranked by relevance
+     *
+     * @param query  free text, tokenized the same way as indexed products
+     * @param offset number of ranked hits to skip
+     * @param limit  maximum number of ids to return
+     * @return matching ids for the requested window, or null if the query has
+     *         no searchable terms
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query, 1).keySet());
+        if (terms.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(terms, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void add(InvertedIndex target, ProductSearchDocument document) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(document.name(), NAME_WEIGHT).forEach((t, f) -> frequencies.merge(t, f, Integer::sum));
+        tokenize(document.brand(), BRAND_WEIGHT).forEach((t, f) -> frequencies.merge(t, f, Integer::sum));
+        tokenize(document.category(), CATEGORY_WEIGHT).forEach((t, f) -> frequencies.merge(t, f, Integer::sum));
+        tokenize(document.description(), DESCRIPTION_WEIGHT).forEach((t, f) -> frequencies.merge(t, f, Integer::sum));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        target.add(document.id(), frequencies, length);
+    }
+
+    /**
+     * Split text into lower-cased, accent-free alphanumeric terms, keeping the
+     * order terms first appear in and counting each occurrence as weight
+     */
+    static Map<String, Integer> tokenize(String text, int weight) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean termChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                terms.merge(normalized.substring(start, i), weight, Integer::sum);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,11 @@
+package org.mindtocode.ecommercebackend.search;
+
+/**
+ * One page of matching product ids in rank order, plus the total match count
+ */
+public record SearchHits(
+        int total,
+        int[] ids) {
+
+    static final SearchHits EMPTY = new SearchHits(0, new int[0]);
+}
@@ -1,15 +1,17 @@
 package org.mindtocode.ecommercebackend.service;
 
-import org.mindtocode.ecommercebackend.model.OAuth2State;
+import java.util.Date;
+
+import org.mindtocode.ecommercebackend.config.JwtProperties;
 import org.mindtocode.ecommercebackend.model.RefreshToken;
 import org.mindtocode.ecommercebackend.model.User;
 import org.mindtocode.ecommercebackend.model.dto.OAuthUserInfo;
-import org.mindtocode.ecommercebackend.repo.OAuth2StateRepo;
 import org.mindtocode.ecommercebackend.repo.RefreshTokenRepo;
 import org.mindtocode.ecommercebackend.repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AuthService {
@@ -19,33 +21,46 @@ public class AuthService {
     @Autowired
     private RefreshTokenRepo refreshTokenRepo;
     @Autowired
-    private OAuth2StateRepo oauth2StateRepo;
-    private BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+    private OAuth2StateStore oauth2StateStore;
+    @Autowired
+    private MyUserDetailsService userDetailsService;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private JwtProperties jwtProperties;
+    @Autowired
+    private PasswordEncoder encoder;
 
     public User register(User user) {
         user.setPassword(encoder.encode(user.getPassword()));
-        return userRepo.save(user);
-    }
-
-    public User findByUsername(String username) {
-        return userRepo.findByUsername(username);
+        User saved = userRepo.save(user);
+        userDetailsService.evict(saved.getUsername());
+        return saved;
     }
 
-    public void saveRefreshToken(String username, String refreshToken) {
-        User user = userRepo.findByUsername(username);
+    /**
+     * Store the hash of a new refresh token and end the user's oldest sessions
+     * beyond jwt.refresh.max-per-user
+     */
+    @Transactional
+    public void saveRefreshToken(Integer userId, String refreshToken) {
         RefreshToken refreshTokenEntity = new RefreshToken();
-        refreshTokenEntity.setToken(refreshToken);
-        refreshTokenEntity.setUser(user);
+        refreshTokenEntity.setTokenHash(JwtService.sha256(refreshToken));
+        // a reference is enough for the foreign key, no need to load the user
+        refreshTokenEntity.setUser(userRepo.getReferenceById(userId));
+        refreshTokenEntity.setExpiresAt(jwtService.verify(refreshToken).expiration());
+        refreshTokenEntity.setCreatedAt(new Date());
         refreshTokenRepo.save(refreshTokenEntity);
+        refreshTokenRepo.flush();
+        refreshTokenRepo.deleteOldest(userId, jwtProperties.getRefresh().getMaxPerUser());
     }
 
     public User findByRefreshToken(String refreshToken) {
-        RefreshToken refreshTokenEntity = refreshTokenRepo.findById(refreshToken).orElse(null);
-        return refreshTokenEntity != null ? refreshTokenEntity.getUser() : null;
+        return refreshTokenRepo.findUserByTokenHash(JwtService.sha256(refreshToken), new Date());
     }
 
     public void deleteRefreshToken(String refreshToken) {
-        refreshTokenRepo.deleteById(refreshToken);
+        refreshTokenRepo.deleteById(JwtService.sha256(refreshToken));
     }
 
     /**
@@ -64,25 +79,23 @@ public class AuthService {
             user = new User();
             user.setUsername(username);
             user = userRepo.save(user);
+            userDetailsService.evict(username);
         }
 
         return user;
     }
 
     public void saveOAuth2State(String provider, String state) {
-        OAuth2State oauth2State = new OAuth2State();
-        oauth2State.setProvider(provider);
-        oauth2State.setState(state);
-        oauth2StateRepo.save(oauth2State);
+        oauth2StateStore.save(provider, state);
     }
 
-    public boolean validateOAuth2State(String provider, String state) {
-        OAuth2State oauth2State = oauth2StateRepo.findProviderAndState(provider, state).orElse(null);
-        return oauth2State != null;
-    }
-
-    public void deleteOAuth2State(String provider, String state) {
-        oauth2StateRepo.deleteById(state);
+    /**
+     * Validate and invalidate a state in one step
+     *
+     * @return true if the state was issued for this provider and not used yet
+     */
+    public boolean consumeOAuth2State(String provider, String state) {
+        return oauth2StateStore.consume(provider, state);
     }
 
     public User findOrCreateUser(String provider, OAuthUserInfo userInfo) {
@@ -92,6 +105,7 @@ public class AuthService {
             user.setUsername(userInfo.email());
             user.setProvider(provider);
             user = userRepo.save(user);
+            userDetailsService.evict(user.getUsername());
         }
         return user;
     }
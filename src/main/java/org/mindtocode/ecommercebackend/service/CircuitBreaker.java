@@ -0,0 +1,58 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consecutive-failure circuit breaker. After failureThreshold failures in a
+ * row calls are refused for openMillis, then a single trial call decides
+ * whether the circuit closes again or stays open for another period.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // 0 while closed, otherwise when the circuit opened
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @return true if a call may go ahead, the caller must then report it with
+     *         {@link #onSuccess()} or {@link #onFailure()}
+     */
+    public boolean tryAcquire() {
+        long opened = openedAt.get();
+        if (opened == 0) {
+            return true;
+        }
+        if (System.currentTimeMillis() - opened < openMillis) {
+            return false;
+        }
+        // half-open, one caller gets to probe the provider
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        openedAt.set(0);
+        trialInFlight.set(false);
+    }
+
+    public void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || trialInFlight.get()) {
+            openedAt.set(System.currentTimeMillis());
+        }
+        trialInFlight.set(false);
+    }
+
+    public boolean isOpen() {
+        return openedAt.get() != 0;
+    }
+}
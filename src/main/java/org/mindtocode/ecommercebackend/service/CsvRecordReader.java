@@ -0,0 +1,103 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV: the first record names the columns, fields may be quoted,
+ * quoted fields may contain commas, line breaks and doubled quotes. Empty
+ * fields are read as missing values.
+ */
+class CsvRecordReader extends ImportRecordReader {
+
+    private List<String> header;
+
+    CsvRecordReader(Reader reader, int maxRecordLength) {
+        super(reader, maxRecordLength);
+    }
+
+    /**
+     * @return the column names, read from the first record
+     */
+    List<String> header() throws IOException {
+        if (header == null) {
+            List<String> fields = readFields();
+            if (fields == null) {
+                throw new IllegalArgumentException("CSV body is empty, expected a header row");
+            }
+            if (!fields.isEmpty() && fields.get(0).startsWith("\uFEFF")) {
+                fields.set(0, fields.get(0).substring(1));
+            }
+            header = fields.stream().map(String::trim).toList();
+        }
+        return header;
+    }
+
+    @Override
+    ImportRecord next() throws IOException {
+        List<String> columns = header();
+        List<String> fields;
+        long start;
+        do {
+            start = line;
+            fields = readFields();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+        if (fields.size() != columns.size()) {
+            return ImportRecord.invalid(start,
+                    "Expected " + columns.size() + " fields but got " + fields.size());
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = fields.get(i);
+            values.put(columns.get(i), value.isEmpty() ? null : value);
+        }
+        return new ImportRecord(start, values, null);
+    }
+
+    private List<String> readFields() throws IOException {
+        long start = line;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        startRecord();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new UnreadableRecordException(start,
+                            "Unterminated quoted field starting at line " + start);
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                append(field, (char) c, start);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c != '\r') {
+                append(field, (char) c, start);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,213 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.mindtocode.ecommercebackend.config.ImageStorageProperties;
+import org.mindtocode.ecommercebackend.exceptions.InvalidImageException;
+import org.mindtocode.ecommercebackend.model.dto.StoredImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Content-addressed image store on local disk.
+ * Images are keyed by the SHA-256 of their bytes and laid out as
+ * {@code <root>/ab/cd/<key>}, so identical uploads share one file and a stored
+ * file never changes once written.
+ */
+@Service
+public class ImageStorageService {
+
+    // bytes read per step of an upload, the most an upload holds on heap
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // enough leading bytes to tell the supported formats apart
+    private static final int SIGNATURE_LENGTH = 12;
+
+    @Autowired
+    private ImageStorageProperties imageStorageProperties;
+
+    private Path root;
+    private Path tmp;
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(imageStorageProperties.getLocation()).toAbsolutePath().normalize();
+        tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+    }
+
+    /**
+     * Stream an uploaded image into the store. The upload is copied in
+     * {@value #CHUNK_SIZE}-byte chunks to a temporary file and hashed on the
+     * way, so heap use does not depend on the image size. The format is taken
+     * from the leading bytes and the size is checked while copying.
+     *
+     * @param in image content, read to the end but not closed
+     * @return content key, detected content type and size
+     * @throws InvalidImageException          if the content is not a JPEG, PNG,
+     *                                        GIF or WebP image
+     * @throws MaxUploadSizeExceededException if it is larger than
+     *                                        image.storage.max-size
+     * @throws IOException                    if the upload cannot be read or the
+     *                                        file cannot be written
+     */
+    public StoredImage store(InputStream in) throws IOException {
+        long maxSize = imageStorageProperties.getMaxSize().toBytes();
+        MessageDigest digest = sha256();
+        Path partial = Files.createTempFile(tmp, "upload", ".part");
+        try {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read = in.readNBytes(chunk, 0, SIGNATURE_LENGTH);
+            String contentType = detectContentType(chunk, read);
+            if (contentType == null) {
+                throw new InvalidImageException("Image must be a JPEG, PNG, GIF or WebP file");
+            }
+            long size = 0;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(partial), digest)) {
+                do {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new MaxUploadSizeExceededException(maxSize);
+                    }
+                    out.write(chunk, 0, read);
+                } while ((read = in.read(chunk)) != -1);
+            }
+
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                // move into place so readers never see a partial file
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StoredImage(key, contentType, size);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Store image bytes already in memory and return their content key. The
+     * bytes are not checked, uploads go through {@link #store(InputStream)}.
+     *
+     * @param data image bytes
+     * @return SHA-256 hex key referencing the stored file
+     * @throws IOException if the file cannot be written
+     */
+    public String store(byte[] data) throws IOException {
+        String key = HexFormat.of().formatHex(sha256().digest(data));
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            return key;
+        }
+        Files.createDirectories(target.getParent());
+        // write aside and move into place so readers never see a partial file
+        Path partial = Files.createTempFile(tmp, key, ".part");
+        try {
+            Files.write(partial, data);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return key;
+    }
+
+    /**
+     * Resolve the file backing a content key
+     *
+     * @param key content key returned by {@link #store(byte[])}
+     * @return path of the stored file (may not exist)
+     */
+    public Path resolve(String key) {
+        // keys only ever come from store(), but never let one escape the root
+        if (key == null || key.length() < 4 || !key.chars().allMatch(HexFormat::isHexDigit)) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * Resolve the file of a downscaled copy of an image. The pixel size is part
+     * of the name, so changing the configured sizes never serves stale files.
+     *
+     * @param key     content key of the original
+     * @param variant name of the variant
+     * @param size    longest side in pixels
+     * @return path of the variant file (may not exist)
+     */
+    public Path resolveVariant(String key, String variant, int size) {
+        Path original = resolve(key);
+        return original.resolveSibling(key + "-" + variant + "-" + size + ".jpg");
+    }
+
+    /**
+     * Write a variant file, replacing it atomically if it already exists
+     *
+     * @param target path from {@link #resolveVariant(String, String, int)}
+     * @param data   encoded image
+     * @throws IOException if the file cannot be written
+     */
+    public void storeVariant(Path target, byte[] data) throws IOException {
+        Path partial = Files.createTempFile(tmp, target.getFileName().toString(), ".part");
+        try {
+            Files.write(partial, data);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    public boolean exists(String key) {
+        return key != null && Files.isRegularFile(resolve(key));
+    }
+
+    private static String detectContentType(byte[] head, int length) {
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return "image/png";
+        }
+        if (startsWith(head, length, 'G', 'I', 'F', '8') && length >= 6 && (head[4] == '7' || head[4] == '9')
+                && head[5] == 'a') {
+            return "image/gif";
+        }
+        if (startsWith(head, length, 'R', 'I', 'F', 'F') && length >= 12 && head[8] == 'W' && head[9] == 'E'
+                && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.mindtocode.ecommercebackend.config.ImageVariantProperties;
+import org.mindtocode.ecommercebackend.model.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renders the downscaled variants of stored images on a small fixed pool with
+ * a bounded queue, off the request that uploaded them. Variants are JPEG files
+ * next to the original; until one exists the original is served and the
+ * request schedules it, which also backfills images stored before variants.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    @Autowired
+    private ImageVariantProperties imageVariantProperties;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    // keys queued or rendering, so repeated requests do not queue the same work
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // originals that could not be decoded (e.g. WebP), not retried for a while
+    private final Cache<String, Boolean> failed = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+    private Timer renderTimer;
+    private Counter rejected;
+    private Counter failures;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // platform threads on purpose, resizing is CPU bound like password hashing
+        executor = new ThreadPoolExecutor(imageVariantProperties.getThreads(),
+                imageVariantProperties.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(imageVariantProperties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("image.variants.queue", executor, pool -> pool.getQueue().size())
+                .description("Images waiting for their variants to be rendered")
+                .register(meterRegistry);
+        renderTimer = Timer.builder("image.variants.render")
+                .description("Time to decode an image and write all of its variants")
+                .register(meterRegistry);
+        rejected = Counter.builder("image.variants.rejected")
+                .description("Images not queued because the queue was full")
+                .register(meterRegistry);
+        failures = Counter.builder("image.variants.failed")
+                .description("Images whose variants could not be rendered")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queue rendering of the variants of a stored image. Returns immediately;
+     * when the queue is full the image is skipped and rendered on first request.
+     *
+     * @param key content key of the original
+     */
+    public void generate(String key) {
+        if (key == null || failed.getIfPresent(key) != null || !pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    renderTimer.record(() -> render(key));
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            rejected.increment();
+        }
+    }
+
+    /**
+     * Find a rendered variant, scheduling it if it does not exist yet
+     *
+     * @param key     content key of the original
+     * @param variant requested variant
+     * @return path of the variant file, or null to serve the original
+     */
+    public Path find(String key, ImageVariant variant) {
+        Path path = imageStorageService.resolveVariant(key, variant.name().toLowerCase(), size(variant));
+        if (Files.isRegularFile(path)) {
+            return path;
+        }
+        generate(key);
+        return null;
+    }
+
+    private int size(ImageVariant variant) {
+        return switch (variant) {
+            case THUMBNAIL -> imageVariantProperties.getThumbnailSize();
+            case MEDIUM -> imageVariantProperties.getMediumSize();
+        };
+    }
+
+    private void render(String key) {
+        try {
+            BufferedImage source = decode(imageStorageService.resolve(key), size(ImageVariant.MEDIUM));
+            if (source == null) {
+                failed.put(key, Boolean.TRUE);
+                failures.increment();
+                logger.debug("No decoder for image {}, serving the original only", key);
+                return;
+            }
+            // each variant is scaled from the previous, larger one
+            BufferedImage medium = scale(source, size(ImageVariant.MEDIUM));
+            write(key, ImageVariant.MEDIUM, medium);
+            write(key, ImageVariant.THUMBNAIL, scale(medium, size(ImageVariant.THUMBNAIL)));
+        } catch (IOException | RuntimeException e) {
+            failed.put(key, Boolean.TRUE);
+            failures.increment();
+            logger.warn("Could not render variants of image {}", key, e);
+        }
+    }
+
+    /**
+     * Decode an image, skipping pixels while reading so the decoded copy is at
+     * most about twice the largest variant and a huge upload cannot exhaust the
+     * heap. Returns null when no installed reader handles the format.
+     */
+    private static BufferedImage decode(Path file, int largest) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (2 * largest));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fit an image within a square of the given size, keeping its aspect ratio.
+     * Never enlarges, and the result is always opaque RGB on white so
+     * transparent PNGs and GIFs encode as JPEG.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        // halve with bilinear steps first, a single large step drops detail unevenly
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(String key, ImageVariant variant, BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(imageVariantProperties.getQuality());
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        imageStorageService.storeVariant(
+                imageStorageService.resolveVariant(key, variant.name().toLowerCase(), size(variant)),
+                bytes.toByteArray());
+    }
+}
@@ -0,0 +1,14 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.Map;
+
+/**
+ * One row of an import body as raw strings keyed by column, or the reason it
+ * could not be read. line is where the row starts in the body, from 1.
+ */
+record ImportRecord(long line, Map<String, String> fields, String error) {
+
+    static ImportRecord invalid(long line, String error) {
+        return new ImportRecord(line, null, error);
+    }
+}
@@ -0,0 +1,63 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads an import body record by record, holding at most one record in
+ * memory. A record longer than maxRecordLength ends the import with an
+ * {@link UnreadableRecordException} since the reader cannot tell where the
+ * next one starts.
+ */
+abstract class ImportRecordReader {
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int recordLength;
+    // line of the next character to read
+    protected long line = 1;
+
+    ImportRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * @return the next record, or null at the end of the body
+     */
+    abstract ImportRecord next() throws IOException;
+
+    /**
+     * @return the next character, or -1 at the end of the body
+     */
+    protected int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    protected void startRecord() {
+        recordLength = 0;
+    }
+
+    protected void append(StringBuilder record, char c, long startLine) {
+        if (++recordLength > maxRecordLength) {
+            throw new UnreadableRecordException(startLine,
+                    "Record at line " + startLine + " is longer than " + maxRecordLength + " characters");
+        }
+        record.append(c);
+    }
+}
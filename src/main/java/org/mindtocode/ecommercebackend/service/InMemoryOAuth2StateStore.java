@@ -0,0 +1,110 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.mindtocode.ecommercebackend.config.OAuth2StateProperties;
+import org.mindtocode.ecommercebackend.exceptions.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Default state store for a single instance. States live in a concurrent map
+ * and every state is also filed in the time-wheel slot of the second it
+ * expires in. Once a second the wheel advances and drops whatever is still in
+ * the slots it passed, so abandoned flows cost nothing beyond that sweep.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2.state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOAuth2StateStore implements OAuth2StateStore {
+
+    private static final long TICK_MILLIS = 1000;
+
+    @Autowired
+    private OAuth2StateProperties oauth2StateProperties;
+
+    private final Map<String, Entry> states = new ConcurrentHashMap<>();
+    private Queue<String>[] wheel;
+    private long ttlMillis;
+    // Last tick whose slot has been swept
+    private long sweptTick;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void init() {
+        ttlMillis = oauth2StateProperties.getTtl().toMillis();
+        // one spare slot so a new state never lands in the slot being swept
+        wheel = new Queue[(int) (ttlMillis / TICK_MILLIS) + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        sweptTick = System.currentTimeMillis() / TICK_MILLIS;
+    }
+
+    @Override
+    public void save(String provider, String state) {
+        if (states.size() >= oauth2StateProperties.getMaxEntries()) {
+            throw new ServiceBusyException("Too many sign-in attempts in progress, try again shortly");
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        states.put(state, new Entry(provider, expiresAt));
+        wheel[slot(expiresAt / TICK_MILLIS + 1)].add(state);
+    }
+
+    @Override
+    public boolean consume(String provider, String state) {
+        Entry entry = states.get(state);
+        if (entry == null || !entry.provider().equals(provider)) {
+            return false;
+        }
+        // only one concurrent callback can remove this exact entry
+        return states.remove(state, entry) && entry.expiresAt() > System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void advance() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / TICK_MILLIS;
+        // catch up on ticks missed while the scheduler was busy, at most one full turn
+        long from = Math.max(sweptTick + 1, currentTick - wheel.length + 1);
+        List<String> notDue = new ArrayList<>();
+        for (long tick = from; tick <= currentTick; tick++) {
+            Queue<String> slot = wheel[slot(tick)];
+            String state;
+            while ((state = slot.poll()) != null) {
+                Entry entry = states.get(state);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.expiresAt() <= now) {
+                    states.remove(state, entry);
+                } else {
+                    // only after a stall longer than one turn
+                    notDue.add(state);
+                }
+            }
+        }
+        sweptTick = currentTick;
+        for (String state : notDue) {
+            Entry entry = states.get(state);
+            if (entry != null) {
+                wheel[slot(entry.expiresAt() / TICK_MILLIS + 1)].add(state);
+            }
+        }
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % wheel.length);
+    }
+
+    private record Entry(String provider, long expiresAt) {
+    }
+}
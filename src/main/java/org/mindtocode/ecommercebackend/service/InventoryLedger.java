@@ -0,0 +1,176 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mindtocode.ecommercebackend.config.InventoryProperties;
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.repo.ProductRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory stock counters that admit order transactions before they reach the
+ * product row. Each product has its own lock-free counter, so checkouts of a
+ * hot product only contend on a CAS and, once it is sold out, are rejected
+ * after loading the product but without queueing on its row lock. The
+ * conditional UPDATE in ProductStockRepo stays the source of truth: the ledger
+ * can only let too many orders through (the database then rejects them),
+ * never oversell.
+ */
+@Component
+public class InventoryLedger {
+
+    @Autowired
+    private InventoryProperties inventoryProperties;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Take quantities from the ledger for the current transaction. They are
+     * given back automatically if the transaction rolls back.
+     *
+     * @param quantities quantity per product id
+     * @param products   products loaded for this order, used to seed counters
+     * @return id of the first product without enough stock (nothing is
+     *         reserved then), or null if every line was reserved
+     */
+    public Integer reserve(Map<Integer, Integer> quantities, Map<Integer, Product> products) {
+        if (!inventoryProperties.isLedgerEnabled()) {
+            return null;
+        }
+        List<Map.Entry<Counter, Integer>> reserved = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Counter counter = counters.computeIfAbsent(line.getKey(),
+                    id -> new Counter(products.get(id).getStockQuantity()));
+            if (!counter.take(line.getValue())) {
+                reserved.forEach(entry -> entry.getKey().giveBack(entry.getValue()));
+                return line.getKey();
+            }
+            reserved.add(Map.entry(counter, line.getValue()));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    for (Map.Entry<Counter, Integer> entry : reserved) {
+                        if (status == STATUS_COMMITTED) {
+                            entry.getKey().settle(entry.getValue());
+                        } else {
+                            entry.getKey().giveBack(entry.getValue());
+                        }
+                    }
+                }
+            });
+        } else {
+            reserved.forEach(entry -> entry.getKey().settle(entry.getValue()));
+        }
+        return null;
+    }
+
+    /**
+     * Forget the counter of a product whose stock was changed outside of order
+     * placement, it is re-seeded from the next order that loads it
+     */
+    public void invalidate(int productId) {
+        counters.remove(productId);
+    }
+
+    /**
+     * Re-read stock for every tracked product. Counters with no reservation in
+     * flight are dropped (and re-seeded on demand). The rest are live, and an
+     * order that committed its UPDATE but is not settled yet is counted both
+     * in the table value and in flight, so they are only corrected as far as
+     * the table proves them wrong: down to the stock, or up to the stock
+     * minus everything in flight.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reconcile-interval:5s}")
+    public void reconcile() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        // counters invalidated while the query runs are replaced, never corrected with its stale values
+        Map<Integer, Counter> tracked = new HashMap<>(counters);
+        Map<Integer, Integer> stock = productRepo.findStock(new ArrayList<>(tracked.keySet()));
+        tracked.forEach((productId, counter) -> {
+            Integer quantity = stock.get(productId);
+            if (quantity == null || counter.idle()) {
+                counters.remove(productId, counter);
+            } else {
+                counter.clamp(quantity);
+            }
+        });
+    }
+
+    /**
+     * Units the ledger would admit for a product, or null if it has no counter
+     */
+    Integer available(int productId) {
+        Counter counter = counters.get(productId);
+        return counter == null ? null : Counter.available(counter.state.get());
+    }
+
+    private static final class Counter {
+        // available units in the high half, units in flight in the low half, so
+        // reconcile sees both as of the same take, give back or settle
+        private final AtomicLong state;
+
+        Counter(int stock) {
+            state = new AtomicLong(pack(stock, 0));
+        }
+
+        boolean take(int quantity) {
+            long current;
+            do {
+                current = state.get();
+                if (available(current) < quantity) {
+                    return false;
+                }
+            } while (!state.compareAndSet(current,
+                    pack(available(current) - quantity, inFlight(current) + quantity)));
+            return true;
+        }
+
+        void giveBack(int quantity) {
+            state.updateAndGet(s -> pack(available(s) + quantity, inFlight(s) - quantity));
+        }
+
+        void settle(int quantity) {
+            state.updateAndGet(s -> pack(available(s), inFlight(s) - quantity));
+        }
+
+        boolean idle() {
+            return inFlight(state.get()) == 0;
+        }
+
+        // the true count lies between stock - inFlight (none of them committed
+        // yet) and stock (all of them committed), only a count outside is wrong
+        void clamp(int stock) {
+            state.updateAndGet(s -> pack(Math.max(Math.min(available(s), stock), stock - inFlight(s)), inFlight(s)));
+        }
+
+        private static long pack(int available, int inFlight) {
+            return ((long) available << 32) | (inFlight & 0xFFFFFFFFL);
+        }
+
+        private static int available(long state) {
+            return (int) (state >> 32);
+        }
+
+        private static int inFlight(long state) {
+            return (int) state;
+        }
+    }
+}
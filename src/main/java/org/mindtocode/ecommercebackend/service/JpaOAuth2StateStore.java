@@ -0,0 +1,46 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.Date;
+
+import org.mindtocode.ecommercebackend.config.OAuth2StateProperties;
+import org.mindtocode.ecommercebackend.model.OAuth2State;
+import org.mindtocode.ecommercebackend.repo.OAuth2StateRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * State store for several instances behind a load balancer, where the callback
+ * can reach a different node than the authorize request. Consuming is a single
+ * conditional DELETE, one round trip instead of a lookup and a delete.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2.state.store", havingValue = "jdbc")
+public class JpaOAuth2StateStore implements OAuth2StateStore {
+
+    @Autowired
+    private OAuth2StateRepo oauth2StateRepo;
+
+    @Autowired
+    private OAuth2StateProperties oauth2StateProperties;
+
+    @Override
+    public void save(String provider, String state) {
+        oauth2StateRepo.save(new OAuth2State(state, provider, new Date()));
+    }
+
+    @Override
+    public boolean consume(String provider, String state) {
+        return oauth2StateRepo.deleteIssuedAfter(provider, state, cutoff()) == 1;
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.state.ttl:5m}")
+    public void purge() {
+        oauth2StateRepo.deleteIssuedBefore(cutoff());
+    }
+
+    private Date cutoff() {
+        return new Date(System.currentTimeMillis() - oauth2StateProperties.getTtl().toMillis());
+    }
+}
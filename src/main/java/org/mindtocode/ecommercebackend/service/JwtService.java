@@ -1,21 +1,34 @@
 package org.mindtocode.ecommercebackend.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
-import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import jakarta.annotation.PostConstruct;
+
 import org.mindtocode.ecommercebackend.config.JwtProperties;
+import org.mindtocode.ecommercebackend.model.UserPrinciple;
 
 @Service
 public class JwtService {
@@ -23,14 +36,45 @@ public class JwtService {
     @Autowired
     private JwtProperties jwtProperties;
 
+    // Built once, both are immutable and thread-safe
+    private Key key;
+    private JwtParser parser;
+    // Tokens already verified, keyed by SHA-256 of the token and dropped when the token expires
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtProperties.getSecret()));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCache().getMaximumSize())
+                .expireAfter(Expiry.<String, VerifiedToken>creating((hash, token) -> Duration
+                        .ofMillis(Math.max(0, token.expiration().getTime() - System.currentTimeMillis()))))
+                .build();
+    }
+
     public String generateToken(String username) {
+        return generateToken(username, new HashMap<>());
+    }
+
+    /**
+     * Access token that also carries the user id and role, enough to
+     * authenticate requests without loading the user (jwt.stateless)
+     */
+    public String generateToken(UserPrinciple user) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", user.getId());
+        claims.put("role", user.getRole().name());
+        return generateToken(user.getUsername(), claims);
+    }
+
+    private String generateToken(String username, Map<String, Object> claims) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration()))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -42,56 +86,70 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtProperties.getRefresh().getExpiration()))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Check the signature and expiry of a token and return its claims. Each
+     * distinct token is parsed once, repeat calls are served from memory until
+     * the token expires.
+     *
+     * @param token compact JWT
+     * @return verified claims
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or
+     *                                      expired
+     * @throws IllegalArgumentException     if the token is null or empty
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT must not be empty");
+        }
+        String hash = sha256(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(hash);
+        if (verified == null) {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verified = new VerifiedToken(claims.getSubject(), claims.getExpiration(),
+                    claims.get("type", String.class), claims.get("uid", Integer.class),
+                    claims.get("role", String.class));
+            verifiedTokens.put(hash, verified);
+        }
+        return verified;
+    }
+
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            return "refresh".equals(claims.get("type"));
+            return verify(token).isRefreshToken();
         } catch (Exception e) {
             return false;
         }
     }
 
-    private Key getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtProperties.getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        VerifiedToken verified = verify(token);
+        return verified.subject().equals(userDetails.getUsername()) && !verified.isExpired();
     }
 
     public boolean validateRefreshToken(String token) {
         try {
-            return !isTokenExpired(token) && isRefreshToken(token);
+            VerifiedToken verified = verify(token);
+            return !verified.isExpired() && verified.isRefreshToken();
         } catch (Exception e) {
             return false;
         }
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getKey()).build().parseClaimsJws(token).getBody();
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
 }
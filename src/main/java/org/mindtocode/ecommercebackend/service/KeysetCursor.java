@@ -0,0 +1,50 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last row of a keyset page, ordered by (date DESC, id DESC).
+ * Clients only ever see it as an opaque url-safe token.
+ */
+public record KeysetCursor(Date date, long id) {
+
+    // largest slice one request may ask for, so every keyset page stays bounded work
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * @throws IllegalArgumentException if size is below one or above
+     *                                  {@link #MAX_PAGE_SIZE}
+     */
+    public static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public String encode() {
+        String raw = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token token produced by {@link #encode()}, null or blank for the
+     *              first page
+     * @return decoded position, or null for the first page
+     * @throws IllegalArgumentException if the token was not produced by encode()
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new KeysetCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
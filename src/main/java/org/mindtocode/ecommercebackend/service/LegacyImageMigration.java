@@ -0,0 +1,63 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One-off copy of images still held in the old product.image_data column into
+ * the image store. Rows are moved one at a time so the migration never holds
+ * more than a single image in memory. Hibernate mapped the old {@code @Lob}
+ * column to a PostgreSQL large object, so bytes are read with lo_get and the
+ * large object is unlinked once copied. Enable with
+ * {@code image.storage.migrate-legacy=true}, then drop the column with
+ * database/drop_product_image_data.sql.
+ */
+@Component
+@ConditionalOnProperty(prefix = "image.storage", name = "migrate-legacy", havingValue = "true")
+public class LegacyImageMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyImageMigration.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM product WHERE image_data IS NOT NULL AND image_key IS NULL", Integer.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Integer id : ids) {
+            transactionTemplate.executeWithoutResult(status -> {
+                byte[] data = jdbcTemplate.queryForObject("SELECT lo_get(image_data) FROM product WHERE id = ?",
+                        byte[].class, id);
+                try {
+                    String key = imageStorageService.store(data);
+                    jdbcTemplate.update("UPDATE product SET image_key = ? WHERE id = ?", key, id);
+                    jdbcTemplate.queryForList("SELECT lo_unlink(image_data) FROM product WHERE id = ?", id);
+                    jdbcTemplate.update("UPDATE product SET image_data = NULL WHERE id = ?", id);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        logger.info("Migrated {} product images to the image store", ids.size());
+    }
+}
@@ -1,26 +1,90 @@
 package org.mindtocode.ecommercebackend.service;
 
+import org.mindtocode.ecommercebackend.config.UserCacheProperties;
 import org.mindtocode.ecommercebackend.model.User;
 import org.mindtocode.ecommercebackend.model.UserPrinciple;
 import org.mindtocode.ecommercebackend.repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Loads users for the JWT filter, login and AuthService through a bounded
+ * cache with a per-entry TTL. Hit/miss/eviction counts are published as
+ * cache.* metrics tagged cache=userDetails. Anything that changes a user must
+ * call {@link #evict(String)}.
+ */
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private UserCacheProperties userCacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, UserPrinciple> users;
+
+    @PostConstruct
+    void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(userCacheProperties.getMaximumSize())
+                .expireAfterWrite(userCacheProperties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "userDetails");
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepo.findByUsername(username);
-        if (user == null) {
-            throw new UsernameNotFoundException("User not found");
+        // Loaded outside the cache on purpose: Cache.get(key, loader) runs the
+        // query inside a synchronized map bin, which pins the carrier thread
+        // when requests run on virtual threads. Two concurrent misses for the
+        // same user both query, which is cheaper than a pinned carrier.
+        UserPrinciple userPrinciple = users.getIfPresent(username);
+        if (userPrinciple == null) {
+            userPrinciple = load(username);
+            if (userPrinciple == null) {
+                // unknown usernames are not cached
+                throw new UsernameNotFoundException("User not found");
+            }
+            users.put(username, userPrinciple);
         }
+        return userPrinciple;
+    }
+
+    /**
+     * Store a password rehashed at the current cost, called by the
+     * authentication provider after a successful login
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepo.findByUsername(userDetails.getUsername());
+        user.setPassword(newPassword);
+        user = userRepo.save(user);
+        evict(user.getUsername());
         return new UserPrinciple(user);
     }
+
+    public void evict(String username) {
+        users.invalidate(username);
+    }
+
+    private UserPrinciple load(String username) {
+        User user = userRepo.findByUsername(username);
+        return user != null ? new UserPrinciple(user) : null;
+    }
 }
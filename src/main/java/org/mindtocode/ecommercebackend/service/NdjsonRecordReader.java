@@ -0,0 +1,73 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Newline-delimited JSON: one flat object per line, blank lines are skipped.
+ * A line that is not a JSON object fails on its own, the next line is read
+ * as usual.
+ */
+class NdjsonRecordReader extends ImportRecordReader {
+
+    private final JsonMapper jsonMapper;
+
+    NdjsonRecordReader(Reader reader, int maxRecordLength, JsonMapper jsonMapper) {
+        super(reader, maxRecordLength);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    ImportRecord next() throws IOException {
+        String text;
+        long start;
+        do {
+            start = line;
+            text = readLine(start);
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        JsonNode node;
+        try {
+            node = jsonMapper.readTree(text);
+        } catch (JacksonException e) {
+            return ImportRecord.invalid(start, "Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return ImportRecord.invalid(start, "Expected a JSON object");
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> property : node.properties()) {
+            JsonNode value = property.getValue();
+            if (value.isContainer()) {
+                return ImportRecord.invalid(start, property.getKey() + " must not be an object or array");
+            }
+            values.put(property.getKey(), value.isNull() ? null : value.asString());
+        }
+        return new ImportRecord(start, values, null);
+    }
+
+    private String readLine(long start) throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        startRecord();
+        StringBuilder text = new StringBuilder();
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                append(text, (char) c, start);
+            }
+            c = read();
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package org.mindtocode.ecommercebackend.service;
+
+/**
+ * Short-lived store for the state parameter of OAuth2 login flows, chosen with
+ * oauth2.state.store
+ */
+public interface OAuth2StateStore {
+
+    void save(String provider, String state);
+
+    /**
+     * Check and remove a state in one step, so a state can be used for at most
+     * one callback
+     *
+     * @return true if the state was issued for this provider, has not expired
+     *         and had not been consumed yet
+     */
+    boolean consume(String provider, String state);
+}
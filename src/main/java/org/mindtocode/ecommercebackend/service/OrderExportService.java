@@ -0,0 +1,194 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.mindtocode.ecommercebackend.config.OrderExportProperties;
+import org.mindtocode.ecommercebackend.model.dto.OrderItemResponse;
+import org.mindtocode.ecommercebackend.model.dto.OrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Streams every order of a date range, with its items, in one pass. The
+ * query runs as a forward-only cursor that fetches
+ * {@code order-export.fetch-size} rows at a time. Each order is written as
+ * soon as its last row has been read, so memory holds one order whatever the
+ * size of the table.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportService.class);
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    // (order_date, id) follows idx_orders_order_date_id, rows of one order arrive together
+    private static final String EXPORT = "SELECT o.id, o.order_id, o.customer_name, o.email, o.status, o.order_date, "
+            + "p.name, i.quantity, i.total_price FROM orders o "
+            + "LEFT JOIN order_item i ON i.order_id = o.id LEFT JOIN product p ON p.id = i.product_id "
+            + "WHERE o.order_date >= ? AND o.order_date < ? ORDER BY o.order_date, o.id, i.id";
+    private static final String CSV_HEADER = "order_id,customer_name,email,status,order_date,product_name,quantity,"
+            + "total_price\n";
+    private static final LocalDate MIN_DATE = LocalDate.of(1970, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OrderExportProperties orderExportProperties;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private JdbcTemplate cursorTemplate;
+
+    @PostConstruct
+    void init() {
+        cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(orderExportProperties.getFetchSize());
+    }
+
+    /**
+     * Write the orders placed between from and to, both days included
+     *
+     * @param from first day, or null for no lower bound
+     * @param to   last day, or null for no upper bound
+     * @return number of orders written
+     */
+    // PostgreSQL only honours the fetch size inside a transaction
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        OrderStreamWriter writer = new OrderStreamWriter(format, buffered);
+        if (format == Format.CSV) {
+            buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            cursorTemplate.query(EXPORT, writer, startOf(from != null ? from : MIN_DATE),
+                    startOf((to != null ? to : MAX_DATE).plusDays(1)));
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            // the client went away, stop reading the cursor
+            throw e.getCause();
+        }
+        buffered.flush();
+        logger.info("Exported {} orders as {} in {}ms", writer.orders, format,
+                (System.nanoTime() - start) / 1_000_000);
+        return writer.orders;
+    }
+
+    private static Timestamp startOf(LocalDate day) {
+        return Timestamp.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Collects the rows of the current order and writes it out when a row of
+     * the next order, or the end of the result, is reached.
+     */
+    private class OrderStreamWriter implements RowCallbackHandler {
+
+        private final Format format;
+        private final OutputStream out;
+        private long currentId = -1;
+        private OrderResponse current;
+        private final List<OrderItemResponse> items = new ArrayList<>();
+        private long orders;
+
+        OrderStreamWriter(Format format, OutputStream out) {
+            this.format = format;
+            this.out = out;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (id != currentId) {
+                finish();
+                currentId = id;
+                current = new OrderResponse(rs.getString(2), rs.getString(3), rs.getString(4),
+                        new Date(rs.getTimestamp(6).getTime()), rs.getString(5), items);
+            }
+            String productName = rs.getString(7);
+            int quantity = rs.getInt(8);
+            if (!rs.wasNull()) {
+                items.add(new OrderItemResponse(productName, quantity, rs.getBigDecimal(9)));
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                if (format == Format.NDJSON) {
+                    out.write(jsonMapper.writeValueAsBytes(current));
+                    out.write('\n');
+                } else {
+                    writeCsv();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            orders++;
+            items.clear();
+            current = null;
+        }
+
+        // one line per item, an order without items gets one line with empty item columns
+        private void writeCsv() throws IOException {
+            StringBuilder prefix = new StringBuilder();
+            csv(prefix, current.orderId()).append(',');
+            csv(prefix, current.customerName()).append(',');
+            csv(prefix, current.email()).append(',');
+            csv(prefix, current.status()).append(',');
+            prefix.append(current.orderDate().toInstant()).append(',');
+            StringBuilder lines = new StringBuilder();
+            if (items.isEmpty()) {
+                lines.append(prefix).append(",,\n");
+            }
+            for (OrderItemResponse item : items) {
+                lines.append(prefix);
+                csv(lines, item.productName()).append(',').append(item.quantity()).append(',');
+                lines.append(item.totalPrice() != null ? item.totalPrice().toPlainString() : "").append('\n');
+            }
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static StringBuilder csv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
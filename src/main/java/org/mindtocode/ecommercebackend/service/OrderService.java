@@ -2,26 +2,36 @@ package org.mindtocode.ecommercebackend.service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.mindtocode.ecommercebackend.exceptions.ProductNotFoundException;
 import org.mindtocode.ecommercebackend.exceptions.ProductOutOfStockException;
 import org.mindtocode.ecommercebackend.model.Order;
 import org.mindtocode.ecommercebackend.model.OrderItem;
 import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.CursorPage;
 import org.mindtocode.ecommercebackend.model.dto.OrderItemRequest;
 import org.mindtocode.ecommercebackend.model.dto.OrderItemResponse;
+import org.mindtocode.ecommercebackend.model.dto.OrderItemRow;
 import org.mindtocode.ecommercebackend.model.dto.OrderRequest;
 import org.mindtocode.ecommercebackend.model.dto.OrderResponse;
 import org.mindtocode.ecommercebackend.repo.OrderRepo;
 import org.mindtocode.ecommercebackend.repo.ProductRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedModel;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class OrderService {
@@ -32,17 +42,39 @@ public class OrderService {
     @Autowired
     private ProductRepo productRepo;
 
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Transactional
     public OrderResponse placeOrder(OrderRequest orderRequest) {
         Order order = getOrderFromRequest(orderRequest);
         Order savedOrder = orderRepo.save(order);
         return getOrderResponse(savedOrder);
     }
 
+    @Transactional(readOnly = true)
     public PagedModel<OrderResponse> getOrders(int page, int size) {
         PageRequest pageable = PageRequest.of(page, size, Sort.by("orderDate").descending());
         Page<Order> orders = orderRepo.findAll(pageable);
-        return new PagedModel<OrderResponse>(orders.map(this::getOrderResponse));
+        List<OrderResponse> content = getOrderResponses(orders.getContent());
+        return new PagedModel<OrderResponse>(new PageImpl<>(content, pageable, orders.getTotalElements()));
+    }
 
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> scrollOrders(String cursor, int size) {
+        KeysetCursor.checkPageSize(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        // one extra row tells whether another slice follows
+        Limit limit = Limit.of(size + 1);
+        List<Order> rows = position == null ? orderRepo.findLatest(limit)
+                : orderRepo.findBefore(position.date(), position.id(), limit);
+        List<Order> orders = rows.size() > size ? rows.subList(0, size) : rows;
+        List<OrderResponse> content = getOrderResponses(orders);
+        if (rows.size() <= size) {
+            return new CursorPage<>(content, null);
+        }
+        Order last = orders.get(size - 1);
+        return new CursorPage<>(content, new KeysetCursor(last.getOrderDate(), last.getId()).encode());
     }
 
     private Order getOrderFromRequest(OrderRequest orderRequest) {
@@ -56,16 +88,46 @@ public class OrderService {
     }
 
     private List<OrderItem> getOrderItemsFromRequest(Order order, List<OrderItemRequest> orderItemRequests) {
-        List<OrderItem> orderItems = new ArrayList<>();
+        // total quantity per product, the same product may appear on several lines
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
         for (OrderItemRequest orderItemRequest : orderItemRequests) {
-            Product product = productRepo.findById(orderItemRequest.productId()).orElseThrow(
-                    () -> new ProductNotFoundException("Product not found with id: " + orderItemRequest.productId()));
-            if (product.getStockQuantity() < orderItemRequest.quantity()) {
-                throw new ProductOutOfStockException(
-                        "Product out of stock with name: " + product.getName());
+            if (orderItemRequest.quantity() <= 0) {
+                throw new IllegalArgumentException(
+                        "Quantity must be positive for product id: " + orderItemRequest.productId());
             }
-            product.setStockQuantity(product.getStockQuantity() - orderItemRequest.quantity());
-            productRepo.save(product);
+            quantities.merge(orderItemRequest.productId(), orderItemRequest.quantity(), Integer::sum);
+        }
+
+        // load every referenced product in one query and validate all lines in memory
+        Map<Integer, Product> products = productRepo.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+            if (product.getStockQuantity() < quantity) {
+                throw new ProductOutOfStockException("Product out of stock with name: " + product.getName());
+            }
+        });
+
+        // admit the order in memory first, a sold-out hot product is rejected here
+        // without queueing on its row lock
+        Integer soldOut = inventoryLedger.reserve(quantities, products);
+        if (soldOut != null) {
+            throw new ProductOutOfStockException("Product out of stock with name: " + products.get(soldOut).getName());
+        }
+
+        // one batched conditional update, it re-checks stock at write time
+        List<Integer> insufficient = productRepo.decrementStock(quantities);
+        if (!insufficient.isEmpty()) {
+            throw new ProductOutOfStockException(
+                    "Product out of stock with name: " + products.get(insufficient.get(0)).getName());
+        }
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (OrderItemRequest orderItemRequest : orderItemRequests) {
+            Product product = products.get(orderItemRequest.productId());
             OrderItem orderItem = OrderItem.builder()
                     .product(product)
                     .quantity(orderItemRequest.quantity())
@@ -91,4 +153,25 @@ public class OrderService {
                 order.getOrderDate(), order.getStatus(), getOrderItemResponses(order.getOrderItems()));
     }
 
+    /**
+     * Map a page of orders with one extra query for all of their items,
+     * whatever the page size
+     */
+    private List<OrderResponse> getOrderResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<OrderItemResponse>> itemsByOrder = new HashMap<>();
+        for (OrderItemRow row : orderRepo.findItemRows(orders.stream().map(Order::getId).toList())) {
+            itemsByOrder.computeIfAbsent(row.orderId(), id -> new ArrayList<>())
+                    .add(new OrderItemResponse(row.productName(), row.quantity(), row.totalPrice()));
+        }
+        List<OrderResponse> orderResponses = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderResponses.add(new OrderResponse(order.getOrderId(), order.getCustomerName(), order.getEmail(),
+                    order.getOrderDate(), order.getStatus(), itemsByOrder.getOrDefault(order.getId(), List.of())));
+        }
+        return orderResponses;
+    }
+
 }
@@ -0,0 +1,311 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.mindtocode.ecommercebackend.config.ProductImportProperties;
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.ProductImportError;
+import org.mindtocode.ecommercebackend.model.dto.ProductImportResult;
+import org.mindtocode.ecommercebackend.search.ProductSearchIndex;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Bulk product import from a CSV or NDJSON stream. Rows are read and
+ * validated one at a time and written in batches of
+ * {@code product-import.batch-size}, each in its own transaction, so memory
+ * stays flat whatever the size of the body. Batches go through PostgreSQL
+ * COPY when available, batched INSERTs otherwise. Invalid rows are skipped
+ * and reported, a database error stops the import with the earlier batches
+ * kept.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    static final List<String> COLUMNS = List.of("name", "description", "brand", "price", "category", "releasedDate",
+            "productAvailable", "stockQuantity");
+    // allocationSize of product_seq: with pooled-lo one nextval() owns the next 50 ids
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final String INSERT = "INSERT INTO product (id, name, description, brand, price, category, "
+            + "released_date, product_available, stock_quantity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COPY = "COPY product (id, name, description, brand, price, category, "
+            + "released_date, product_available, stock_quantity) FROM STDIN WITH (FORMAT csv)";
+
+    @Autowired
+    private ProductImportProperties productImportProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter importedRows;
+    private Counter failedRows;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        importedRows = meterRegistry.counter("product.import.rows", "outcome", "imported");
+        failedRows = meterRegistry.counter("product.import.rows", "outcome", "failed");
+    }
+
+    public ProductImportResult importCsv(InputStream body) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(utf8(body), productImportProperties.getMaxRecordLength());
+        List<String> header = reader.header();
+        for (String column : header) {
+            if (!COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown column: " + column + ", expected some of " + COLUMNS);
+            }
+        }
+        if (!header.contains("name") || !header.contains("price")) {
+            throw new IllegalArgumentException("CSV header must contain the name and price columns");
+        }
+        return importRecords(reader);
+    }
+
+    public ProductImportResult importNdjson(InputStream body) throws IOException {
+        return importRecords(new NdjsonRecordReader(utf8(body), productImportProperties.getMaxRecordLength(),
+                jsonMapper));
+    }
+
+    private ProductImportResult importRecords(ImportRecordReader reader) throws IOException {
+        long start = System.nanoTime();
+        int batchSize = productImportProperties.getBatchSize();
+        List<Product> batch = new ArrayList<>(batchSize);
+        List<ProductImportError> errors = new ArrayList<>();
+        long rowsRead = 0;
+        long imported = 0;
+        long failed = 0;
+        boolean completed = true;
+        while (true) {
+            ImportRecord record;
+            try {
+                record = reader.next();
+            } catch (UnreadableRecordException e) {
+                // nothing after this point can be read, keep the rows before it
+                rowsRead++;
+                failed++;
+                failedRows.increment();
+                errors.add(new ProductImportError(e.line(), e.getMessage() + ", import stopped"));
+                completed = false;
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            rowsRead++;
+            try {
+                if (record.error() != null) {
+                    throw new IllegalArgumentException(record.error());
+                }
+                batch.add(toProduct(record.fields()));
+            } catch (IllegalArgumentException e) {
+                failed++;
+                failedRows.increment();
+                if (errors.size() < productImportProperties.getMaxReportedErrors()) {
+                    errors.add(new ProductImportError(record.line(), e.getMessage()));
+                }
+            }
+            if (batch.size() == batchSize) {
+                imported += write(batch);
+                batch.clear();
+                logger.info("Product import: {} rows read, {} imported, {} failed", rowsRead, imported, failed);
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += write(batch);
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Product import {}: {} rows read, {} imported, {} failed in {}ms",
+                completed ? "finished" : "stopped", rowsRead, imported, failed, elapsed);
+        return new ProductImportResult(completed, rowsRead, imported, failed, errors, elapsed);
+    }
+
+    private int write(List<Product> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            assignIds(batch);
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (productImportProperties.isCopyEnabled() && connection.isWrapperFor(PGConnection.class)) {
+                    try {
+                        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY,
+                                new StringReader(toCsv(batch)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else {
+                    jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, product) -> {
+                        ps.setInt(1, product.getId());
+                        ps.setString(2, product.getName());
+                        ps.setString(3, product.getDescription());
+                        ps.setString(4, product.getBrand());
+                        ps.setBigDecimal(5, product.getPrice());
+                        ps.setString(6, product.getCategory());
+                        ps.setTimestamp(7, new Timestamp(product.getReleasedDate().getTime()));
+                        ps.setBoolean(8, product.getProductAvailable());
+                        ps.setInt(9, product.getStockQuantity());
+                    });
+                }
+                return null;
+            });
+        });
+        batch.forEach(searchIndex::index);
+        importedRows.increment(batch.size());
+        return batch.size();
+    }
+
+    private void assignIds(List<Product> batch) {
+        int next = 0;
+        int blockEnd = 0;
+        for (Product product : batch) {
+            if (next == blockEnd) {
+                next = jdbcTemplate.queryForObject("SELECT nextval('product_seq')", Integer.class);
+                blockEnd = next + ID_BLOCK_SIZE;
+            }
+            product.setId(next++);
+        }
+    }
+
+    private static String toCsv(List<Product> batch) {
+        StringBuilder csv = new StringBuilder(batch.size() * 128);
+        for (Product product : batch) {
+            csv.append(product.getId()).append(',');
+            quote(csv, product.getName()).append(',');
+            quote(csv, product.getDescription()).append(',');
+            quote(csv, product.getBrand()).append(',');
+            csv.append(product.getPrice().toPlainString()).append(',');
+            quote(csv, product.getCategory()).append(',');
+            csv.append(new Timestamp(product.getReleasedDate().getTime())).append(',');
+            csv.append(product.getProductAvailable()).append(',');
+            csv.append(product.getStockQuantity()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    // an unquoted empty field is NULL in COPY csv, a quoted one is an empty string
+    private static StringBuilder quote(StringBuilder csv, String value) {
+        if (value != null) {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        return csv;
+    }
+
+    private static Product toProduct(Map<String, String> fields) {
+        for (String field : fields.keySet()) {
+            if (!COLUMNS.contains(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+        Product product = new Product();
+        product.setName(text(fields, "name"));
+        if (product.getName() == null || product.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        product.setDescription(text(fields, "description"));
+        product.setBrand(text(fields, "brand"));
+        product.setCategory(text(fields, "category"));
+
+        String price = fields.get("price");
+        if (price == null) {
+            throw new IllegalArgumentException("price is required");
+        }
+        try {
+            product.setPrice(new BigDecimal(price.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price must be a number: " + price);
+        }
+        if (product.getPrice().signum() < 0 || product.getPrice().scale() > 2) {
+            throw new IllegalArgumentException("price must be non-negative with at most 2 decimals: " + price);
+        }
+
+        String stock = fields.get("stockQuantity");
+        try {
+            product.setStockQuantity(stock == null ? 0 : Integer.parseInt(stock.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("stockQuantity must be an integer: " + stock);
+        }
+        if (product.getStockQuantity() < 0) {
+            throw new IllegalArgumentException("stockQuantity must not be negative: " + stock);
+        }
+
+        String available = fields.get("productAvailable");
+        if (available == null) {
+            product.setProductAvailable(true);
+        } else if (available.trim().equalsIgnoreCase("true") || available.trim().equalsIgnoreCase("false")) {
+            product.setProductAvailable(Boolean.parseBoolean(available.trim()));
+        } else {
+            throw new IllegalArgumentException("productAvailable must be true or false: " + available);
+        }
+
+        product.setReleasedDate(releasedDate(fields.get("releasedDate")));
+        return product;
+    }
+
+    private static String text(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value != null && value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(name + " must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static Date releasedDate(String value) {
+        if (value == null) {
+            return new Date();
+        }
+        String trimmed = value.trim();
+        try {
+            if (trimmed.length() == 10) {
+                return Date.from(LocalDate.parse(trimmed).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+            return Date.from(Instant.parse(trimmed));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("releasedDate must be yyyy-MM-dd or an ISO-8601 instant: " + value);
+        }
+    }
+
+    private static BufferedReader utf8(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+    }
+}
@@ -1,9 +1,24 @@
 package org.mindtocode.ecommercebackend.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.model.dto.CursorPage;
+import org.mindtocode.ecommercebackend.model.dto.ProductImageRef;
+import org.mindtocode.ecommercebackend.model.dto.ProductSummary;
+import org.mindtocode.ecommercebackend.model.dto.StoredImage;
+import org.mindtocode.ecommercebackend.search.ProductSearchIndex;
+import org.mindtocode.ecommercebackend.search.SearchHits;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedModel;
@@ -17,35 +32,105 @@ public class ProductService {
     @Autowired
     private ProductRepo repo;
 
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     public Product create(Product product, MultipartFile imageFile) throws IOException {
-        product.setImageData(imageFile.getBytes());
-        product.setImageName(imageFile.getOriginalFilename());
-        product.setImageType(imageFile.getContentType());
-        return repo.save(product);
+        attachImage(product, imageFile);
+        Product saved = repo.save(product);
+        searchIndex.index(saved);
+        return saved;
     }
 
-    public PagedModel<Product> getAll(int page, int size) {
-        return new PagedModel<Product>(repo.findAll(PageRequest.of(page, size, Sort.by("releasedDate").descending())));
+    public PagedModel<ProductSummary> getAll(int page, int size) {
+        return new PagedModel<ProductSummary>(
+                repo.findAllSummaries(PageRequest.of(page, size, Sort.by("releasedDate").descending())));
     }
 
-    public PagedModel<Product> getAll(int page, int size, String keyword) {
-        return new PagedModel<Product>(
-                repo.filterByKeyword(keyword, PageRequest.of(page, size, Sort.by("releasedDate").descending())));
+    public CursorPage<ProductSummary> scroll(String cursor, int size) {
+        KeysetCursor.checkPageSize(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        // one extra row tells whether another slice follows
+        Limit limit = Limit.of(size + 1);
+        List<ProductSummary> rows = position == null ? repo.findLatestSummaries(limit)
+                : repo.findSummariesBefore(position.date(), (int) position.id(), limit);
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ProductSummary> content = rows.subList(0, size);
+        ProductSummary last = content.get(size - 1);
+        return new CursorPage<>(content, new KeysetCursor(last.releasedDate(), last.id()).encode());
+    }
+
+    public PagedModel<ProductSummary> getAll(int page, int size, String keyword) {
+        PageRequest pageable = PageRequest.of(page, size);
+        // the index never holds Integer.MAX_VALUE hits, so a larger offset is past the end as well
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+        SearchHits hits = searchIndex.isReady() ? searchIndex.search(keyword, offset, size) : null;
+        if (hits == null) {
+            // index still building or nothing searchable in the keyword
+            return new PagedModel<ProductSummary>(
+                    repo.filterSummariesByKeyword(keyword, pageable.withSort(Sort.by("releasedDate").descending())));
+        }
+        if (hits.ids().length == 0) {
+            return new PagedModel<ProductSummary>(new PageImpl<>(List.of(), pageable, hits.total()));
+        }
+        Map<Integer, ProductSummary> summaries = repo
+                .findSummariesByIdIn(Arrays.stream(hits.ids()).boxed().toList()).stream()
+                .collect(Collectors.toMap(ProductSummary::id, Function.identity()));
+        // keep the relevance order of the index
+        List<ProductSummary> content = new ArrayList<>(hits.ids().length);
+        for (int id : hits.ids()) {
+            ProductSummary summary = summaries.get(id);
+            if (summary != null) {
+                content.add(summary);
+            }
+        }
+        return new PagedModel<ProductSummary>(new PageImpl<>(content, pageable, hits.total()));
     }
 
     public Product update(Product product, MultipartFile imageFile) throws IOException {
-        product.setImageData(imageFile.getBytes());
-        product.setImageName(imageFile.getOriginalFilename());
-        product.setImageType(imageFile.getContentType());
-        return repo.save(product);
+        attachImage(product, imageFile);
+        Product saved = repo.save(product);
+        searchIndex.index(saved);
+        inventoryLedger.invalidate(saved.getId());
+        return saved;
     }
 
     public String delete(int productId) {
         repo.deleteById(productId);
+        searchIndex.remove(productId);
+        inventoryLedger.invalidate(productId);
         return "Deleted";
     }
 
     public Product getById(int productId) {
         return repo.findById(productId).orElse(null);
     }
+
+    public ProductImageRef getImage(int productId) {
+        return repo.findImageById(productId).orElse(null);
+    }
+
+    // streamed from the multipart part (spooled to disk by the container) into the store
+    private void attachImage(Product product, MultipartFile imageFile) throws IOException {
+        StoredImage image;
+        try (InputStream in = imageFile.getInputStream()) {
+            image = imageStorageService.store(in);
+        }
+        product.setImageKey(image.key());
+        product.setImageName(imageFile.getOriginalFilename());
+        product.setImageType(image.contentType());
+        // thumbnail and medium sizes are rendered in the background
+        imageVariantService.generate(image.key());
+    }
 }
@@ -0,0 +1,43 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.Date;
+
+import org.mindtocode.ecommercebackend.config.JwtProperties;
+import org.mindtocode.ecommercebackend.repo.RefreshTokenRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes expired refresh tokens in the background. Each batch is its own
+ * small transaction, so rows are never locked for long and logins writing new
+ * tokens are not held up by a large purge.
+ */
+@Component
+public class RefreshTokenPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenPurger.class);
+
+    @Autowired
+    private RefreshTokenRepo refreshTokenRepo;
+
+    @Autowired
+    private JwtProperties jwtProperties;
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:10m}")
+    public void purge() {
+        Date now = new Date();
+        int batchSize = jwtProperties.getRefresh().getPurgeBatchSize();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepo.deleteExpired(now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        if (total > 0) {
+            logger.info("Purged {} expired refresh tokens", total);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.mindtocode.ecommercebackend.config.OAuthClientProperties;
+import org.mindtocode.ecommercebackend.exceptions.ServiceBusyException;
+import org.mindtocode.ecommercebackend.model.dto.OAuthUserInfo;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Wraps a provider's {@link IOAuthService} with a bulkhead that caps calls in
+ * flight and a circuit breaker that stops calling a provider which keeps
+ * timing out or failing with 5xx. Refused calls fail fast with
+ * {@link ServiceBusyException} (503). Every call is timed as
+ * oauth.client.requests tagged with provider, operation and outcome.
+ */
+public class ResilientOAuthService implements IOAuthService {
+
+    private final String provider;
+    private final IOAuthService delegate;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    public ResilientOAuthService(String provider, IOAuthService delegate, OAuthClientProperties properties,
+            MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.delegate = delegate;
+        this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+        this.circuitBreaker = new CircuitBreaker(properties.getFailureThreshold(),
+                properties.getOpenDuration().toMillis());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("oauth.client.circuit.open", circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String exchangeCode(String code) {
+        return call("exchangeCode", () -> delegate.exchangeCode(code));
+    }
+
+    @Override
+    public OAuthUserInfo fetchUserInfo(String accessToken) {
+        return call("fetchUserInfo", () -> delegate.fetchUserInfo(accessToken));
+    }
+
+    private <T> T call(String operation, Supplier<T> request) {
+        if (!bulkhead.tryAcquire()) {
+            record(operation, "rejected", 0);
+            throw new ServiceBusyException("Too many sign-ins with " + provider + " in progress, try again shortly");
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                record(operation, "circuit_open", 0);
+                throw new ServiceBusyException("Sign-in with " + provider + " is unavailable, try again shortly");
+            }
+            long start = System.nanoTime();
+            try {
+                T result = request.get();
+                circuitBreaker.onSuccess();
+                record(operation, "success", System.nanoTime() - start);
+                return result;
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                // timeouts, refused connections and 5xx count against the provider
+                circuitBreaker.onFailure();
+                record(operation, "failure", System.nanoTime() - start);
+                throw e;
+            } catch (RuntimeException e) {
+                // 4xx such as an invalid code, the provider itself is healthy
+                circuitBreaker.onSuccess();
+                record(operation, "client_error", System.nanoTime() - start);
+                throw e;
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void record(String operation, String outcome, long nanos) {
+        Timer.builder("oauth.client.requests")
+                .tag("provider", provider)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,23 @@
+package org.mindtocode.ecommercebackend.service;
+
+/**
+ * A record the import reader cannot get past, such as one longer than
+ * product-import.max-record-length or a quote that is never closed. The
+ * reader cannot tell where the next record starts, so the import stops here.
+ */
+class UnreadableRecordException extends IllegalArgumentException {
+
+    private final long line;
+
+    UnreadableRecordException(long line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    /**
+     * @return line where the record starts in the body, from 1
+     */
+    long line() {
+        return line;
+    }
+}
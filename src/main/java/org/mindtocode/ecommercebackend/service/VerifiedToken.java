@@ -0,0 +1,23 @@
+package org.mindtocode.ecommercebackend.service;
+
+import java.util.Date;
+
+/**
+ * Claims of a JWT whose signature has already been checked. Built once per
+ * token by JwtService and safe to share between requests.
+ */
+public record VerifiedToken(
+        String subject,
+        Date expiration,
+        String type,
+        Integer userId,
+        String role) {
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+}
@@ -0,0 +1,135 @@
+package org.mindtocode.ecommercebackend.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tokenizing, matching, BM25 ranking and paging of the in-process search index
+ */
+class InvertedIndexTest {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private void add(int id, String text) {
+        Map<String, Integer> terms = ProductSearchIndex.tokenize(text, 1);
+        index.add(id, terms, terms.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private SearchHits search(String query, int offset, int limit) {
+        return index.search(List.copyOf(ProductSearchIndex.tokenize(query, 1).keySet()), offset, limit);
+    }
+
+    @Test
+    void tokenizeLowercasesStripsAccentsAndCountsOccurrences() {
+        assertThat(ProductSearchIndex.tokenize("Café-Crème, CAFE 4K!", 2))
+                .containsExactly(Map.entry("cafe", 4), Map.entry("creme", 2), Map.entry("4k", 2));
+        assertThat(ProductSearchIndex.tokenize("  --  ", 1)).isEmpty();
+        assertThat(ProductSearchIndex.tokenize(null, 1)).isEmpty();
+    }
+
+    @Test
+    void matchesEveryTermWithTheLastAsPrefix() {
+        add(1, "red running shoe");
+        add(2, "blue running shorts");
+        add(3, "red dress");
+
+        assertThat(search("running sho", 0, 10).ids()).containsExactlyInAnyOrder(1, 2);
+        assertThat(search("red sho", 0, 10).ids()).containsExactly(1);
+        // only the last term is a prefix
+        assertThat(search("runn shoe", 0, 10).total()).isZero();
+        assertThat(search("green", 0, 10)).isSameAs(SearchHits.EMPTY);
+    }
+
+    @Test
+    void prefixExpandsToEveryMatchingTerm() {
+        for (int i = 0; i < 200; i++) {
+            add(i + 1, "item" + String.format("%03d", i));
+        }
+
+        SearchHits hits = search("item", 0, 5);
+
+        assertThat(hits.total()).isEqualTo(200);
+        assertThat(search("item199", 0, 5).ids()).containsExactly(200);
+        assertThat(hits.ids()).hasSize(5);
+    }
+
+    @Test
+    void ranksFrequentTermsAndShortDocumentsHigher() {
+        add(1, "laptop bag");
+        add(2, "laptop laptop laptop stand");
+        add(3, "laptop sleeve with pocket and strap");
+
+        // higher term frequency first, then the shorter of the equal matches
+        assertThat(search("laptop", 0, 10).ids()).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    void scoresEveryPrefixExpansionPresentInTheDocument() {
+        add(1, "cable");
+        add(2, "cable cables cabling");
+
+        assertThat(search("cabl", 0, 10).ids()).containsExactly(2, 1);
+    }
+
+    @Test
+    void breaksScoreTiesByHighestId() {
+        add(1, "mug");
+        add(2, "mug");
+        add(3, "mug");
+
+        assertThat(search("mug", 0, 10).ids()).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void pagesThroughRankedHitsWithTotal() {
+        for (int i = 1; i <= 25; i++) {
+            add(i, "widget " + "extra ".repeat(i % 4));
+        }
+
+        int[] all = search("widget", 0, 25).ids();
+        assertThat(all).hasSize(25);
+
+        SearchHits first = search("widget", 0, 10);
+        SearchHits second = search("widget", 10, 10);
+        SearchHits last = search("widget", 20, 10);
+        assertThat(first.total()).isEqualTo(25);
+        assertThat(second.total()).isEqualTo(25);
+        assertThat(first.ids()).containsExactly(Arrays.copyOfRange(all, 0, 10));
+        assertThat(second.ids()).containsExactly(Arrays.copyOfRange(all, 10, 20));
+        assertThat(last.ids()).containsExactly(Arrays.copyOfRange(all, 20, 25));
+        assertThat(search("widget", 30, 10).ids()).isEmpty();
+        assertThat(search("widget", 30, 10).total()).isEqualTo(25);
+    }
+
+    @Test
+    void offsetPastTheHitsGivesAnEmptyPageWithTotal() {
+        add(1, "lamp");
+        add(2, "lamp shade");
+
+        SearchHits hits = search("lamp", Integer.MAX_VALUE, 100);
+        assertThat(hits.ids()).isEmpty();
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(search("lamp", 1, Integer.MAX_VALUE).ids()).hasSize(1);
+        assertThatIllegalArgumentException().isThrownBy(() -> search("lamp", -1, 10));
+        assertThatIllegalArgumentException().isThrownBy(() -> search("lamp", 0, -1));
+    }
+
+    @Test
+    void removedAndReplacedDocumentsLeaveTheIndex() {
+        add(1, "old name");
+        add(2, "other");
+        add(1, "new name");
+        index.remove(2);
+
+        assertThat(search("old", 0, 10).total()).isZero();
+        assertThat(search("new", 0, 10).ids()).containsExactly(1);
+        assertThat(search("other", 0, 10).total()).isZero();
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,107 @@
+package org.mindtocode.ecommercebackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * RFC 4180 parsing of import bodies: quoting, multi-line fields, line numbers
+ * and the records the reader cannot get past
+ */
+class CsvRecordReaderTest {
+
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new StringReader(csv), 100);
+    }
+
+    private static List<ImportRecord> readAll(CsvRecordReader reader) throws IOException {
+        List<ImportRecord> records = new ArrayList<>();
+        ImportRecord record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    void readsHeaderWithoutBomAndSurroundingSpaces() throws IOException {
+        assertThat(reader("﻿name , price\n").header()).containsExactly("name", "price");
+    }
+
+    @Test
+    void rejectsAnEmptyBody() {
+        assertThatThrownBy(() -> reader("").header())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("header");
+    }
+
+    @Test
+    void readsQuotedCommasDoubledQuotesAndEmptyFieldsAsMissing() throws IOException {
+        List<ImportRecord> records = readAll(reader("name,description,price\n"
+                + "\"Desk, oak\",\"The \"\"big\"\" one\",120.50\n"
+                + "Lamp,,9\n"));
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).fields()).containsEntry("name", "Desk, oak")
+                .containsEntry("description", "The \"big\" one")
+                .containsEntry("price", "120.50");
+        assertThat(records.get(1).fields()).containsEntry("description", null);
+    }
+
+    @Test
+    void keepsLineBreaksInQuotedFieldsVerbatimAndNumbersRecordsByStartLine() throws IOException {
+        List<ImportRecord> records = readAll(reader("name,description\r\n"
+                + "Chair,\"line one\r\nline two\"\r\n"
+                + "\r\n"
+                + "Table,plain\r\n"));
+
+        assertThat(records).extracting(ImportRecord::line).containsExactly(2L, 5L);
+        assertThat(records.get(0).fields()).containsEntry("description", "line one\r\nline two");
+        assertThat(records.get(1).fields()).containsEntry("name", "Table");
+    }
+
+    @Test
+    void readsTheLastRecordWithoutTrailingNewline() throws IOException {
+        List<ImportRecord> records = readAll(reader("name,price\nPen,2"));
+
+        assertThat(records).singleElement()
+                .satisfies(record -> assertThat(record.fields()).containsEntry("price", "2"));
+    }
+
+    @Test
+    void reportsAWrongFieldCountAndContinues() throws IOException {
+        List<ImportRecord> records = readAll(reader("name,price\nPen\nInk,3\n"));
+
+        assertThat(records.get(0).error()).isEqualTo("Expected 2 fields but got 1");
+        assertThat(records.get(0).line()).isEqualTo(2);
+        assertThat(records.get(1).fields()).containsEntry("name", "Ink");
+    }
+
+    @Test
+    void stopsAtAnUnterminatedQuoteWithItsStartLine() throws IOException {
+        CsvRecordReader reader = reader("name,price\nPen,2\n\"Ink,3\nPaper,4\n");
+        reader.next();
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOfSatisfying(UnreadableRecordException.class,
+                        e -> assertThat(e.line()).isEqualTo(3))
+                .hasMessageContaining("Unterminated");
+    }
+
+    @Test
+    void stopsAtARecordLongerThanTheLimit() throws IOException {
+        CsvRecordReader reader = reader("name,price\nPen,2\n" + "x".repeat(101) + ",1\n");
+        reader.next();
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOfSatisfying(UnreadableRecordException.class,
+                        e -> assertThat(e.line()).isEqualTo(3))
+                .hasMessageContaining("longer than 100");
+    }
+}
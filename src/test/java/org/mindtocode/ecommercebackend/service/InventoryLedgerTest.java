@@ -0,0 +1,184 @@
+package org.mindtocode.ecommercebackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindtocode.ecommercebackend.config.InventoryProperties;
+import org.mindtocode.ecommercebackend.model.Product;
+import org.mindtocode.ecommercebackend.repo.ProductRepo;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ledger counters against a simulated product row, with transactions that
+ * commit their stock UPDATE before the ledger hears about it
+ */
+class InventoryLedgerTest {
+
+    private static final int PRODUCT_ID = 1;
+
+    private final InventoryLedger ledger = new InventoryLedger();
+    private final Object row = new Object();
+    // product.stock_quantity, and units reserved by transactions that have not committed, both guarded by row
+    private int stock;
+    private int held;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepo productRepo = mock(ProductRepo.class);
+        when(productRepo.findStock(anyCollection())).thenAnswer(invocation -> {
+            synchronized (row) {
+                return Map.of(PRODUCT_ID, stock);
+            }
+        });
+        ReflectionTestUtils.setField(ledger, "inventoryProperties", new InventoryProperties());
+        ReflectionTestUtils.setField(ledger, "productRepo", productRepo);
+    }
+
+    /**
+     * Places one order the way OrderService does: load the product, reserve,
+     * run the conditional UPDATE, then let the ledger know the outcome.
+     *
+     * @param betweenCommitAndSettle runs after the UPDATE committed, before afterCompletion
+     * @return whether the ledger admitted the order
+     */
+    private boolean order(int quantity, boolean commit, Runnable betweenCommitAndSettle) {
+        Product product = new Product();
+        synchronized (row) {
+            product.setStockQuantity(stock);
+            held += quantity;
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            if (ledger.reserve(Map.of(PRODUCT_ID, quantity), Map.of(PRODUCT_ID, product)) != null) {
+                synchronized (row) {
+                    held -= quantity;
+                }
+                return false;
+            }
+            boolean committed = false;
+            synchronized (row) {
+                if (commit && stock >= quantity) {
+                    stock -= quantity;
+                    committed = true;
+                }
+                if (committed) {
+                    held -= quantity;
+                }
+            }
+            betweenCommitAndSettle.run();
+            int status = committed ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK;
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(status);
+            }
+            if (!committed) {
+                synchronized (row) {
+                    held -= quantity;
+                }
+            }
+            return true;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reconcileDoesNotCountCommittedOrdersTwice() {
+        stock = 3;
+
+        // reconcile runs after the UPDATE committed but before the ledger settled it
+        assertThat(order(1, true, ledger::reconcile)).isTrue();
+
+        assertThat(ledger.available(PRODUCT_ID)).isEqualTo(2);
+        assertThat(order(2, true, () -> {
+        })).isTrue();
+        assertThat(order(1, true, () -> {
+        })).isFalse();
+        assertThat(stock).isZero();
+    }
+
+    @Test
+    void reconcileLowersACounterAboveTheStock() {
+        stock = 10;
+        assertThat(order(1, true, () -> {
+        })).isTrue();
+        // keep the counter live while the row is changed behind the ledger's back
+        assertThat(order(1, true, () -> {
+            synchronized (row) {
+                stock = 4;
+            }
+            ledger.reconcile();
+        })).isTrue();
+
+        assertThat(ledger.available(PRODUCT_ID)).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentReconcileNeverUndercountsOrRejectsAvailableStock() throws Exception {
+        stock = 1_000_000;
+        int threads = 8;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger undercounts = new AtomicInteger();
+        AtomicInteger checks = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        try {
+            Future<?> reconciler = pool.submit(() -> {
+                while (running.get()) {
+                    ledger.reconcile();
+                    synchronized (row) {
+                        Integer available = ledger.available(PRODUCT_ID);
+                        if (available != null) {
+                            checks.incrementAndGet();
+                            if (available < stock - held) {
+                                undercounts.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            });
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                buyers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2_000; i++) {
+                        // the stock never runs low, so every order must be admitted
+                        if (!order(1 + random.nextInt(3), random.nextInt(4) > 0, Thread::yield)) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> buyer : buyers) {
+                buyer.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            reconciler.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(checks.get()).isPositive();
+        assertThat(undercounts.get()).isZero();
+        assertThat(rejected.get()).isZero();
+        assertThat(held).isZero();
+    }
+}
@@ -0,0 +1,178 @@
+package org.mindtocode.ecommercebackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindtocode.ecommercebackend.config.GoogleOAuthProperties;
+import org.mindtocode.ecommercebackend.config.OAuthClientProperties;
+import org.mindtocode.ecommercebackend.config.RestTemplateConfig;
+import org.mindtocode.ecommercebackend.exceptions.ServiceBusyException;
+import org.mindtocode.ecommercebackend.model.dto.OAuthUserInfo;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Google OAuth calls through the pooled client and the resilience wrapper,
+ * against a stub provider on localhost
+ */
+class ResilientOAuthServiceTest {
+
+    private HttpServer provider;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CloseableHttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startProvider() throws IOException {
+        provider = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        provider.setExecutor(Executors.newCachedThreadPool());
+        provider.createContext("/token", exchange -> {
+            tokenRequests.incrementAndGet();
+            respond(exchange, "{\"access_token\":\"stub-token\"}");
+        });
+        provider.createContext("/userinfo", exchange -> respond(exchange,
+                "{\"sub\":\"1\",\"name\":\"Stub\",\"email\":\"stub@example.com\",\"picture\":null}"));
+        provider.createContext("/slow", exchange -> {
+            tokenRequests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "{\"access_token\":\"late\"}");
+        });
+        provider.start();
+        meterRegistry = new SimpleMeterRegistry();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void stopProvider() throws IOException {
+        release.countDown();
+        RequestContextHolder.resetRequestAttributes();
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        provider.stop(0);
+    }
+
+    @Test
+    void exchangesCodeAndFetchesUserInfoOverOnePooledConnection() {
+        ResilientOAuthService client = client("/token", properties());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(client.exchangeCode("code")).isEqualTo("stub-token");
+            OAuthUserInfo userInfo = client.fetchUserInfo("stub-token");
+            assertThat(userInfo.email()).isEqualTo("stub@example.com");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+        assertThat(meterRegistry.get("oauth.client.requests").tag("operation", "exchangeCode")
+                .tag("outcome", "success").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void slowProviderTimesOutAndOpensTheCircuit() {
+        OAuthClientProperties properties = properties();
+        properties.setFailureThreshold(2);
+        ResilientOAuthService client = client("/slow", properties);
+
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> client.exchangeCode("code")).isInstanceOf(ResourceAccessException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        }
+
+        assertThatThrownBy(() -> client.exchangeCode("code")).isInstanceOf(ServiceBusyException.class);
+        assertThat(tokenRequests.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("oauth.client.circuit.open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        OAuthClientProperties properties = properties();
+        properties.setMaxConcurrentCalls(1);
+        properties.setReadTimeout(Duration.ofSeconds(5));
+        ResilientOAuthService client = client("/slow", properties);
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> inFlight = caller.submit(() -> {
+                RequestContextHolder.setRequestAttributes(
+                        new ServletRequestAttributes(new MockHttpServletRequest()));
+                return client.exchangeCode("code");
+            });
+            while (tokenRequests.get() == 0) {
+                Thread.sleep(10);
+            }
+
+            assertThatThrownBy(() -> client.exchangeCode("code")).isInstanceOf(ServiceBusyException.class);
+
+            release.countDown();
+            assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    private OAuthClientProperties properties() {
+        OAuthClientProperties properties = new OAuthClientProperties();
+        properties.setConnectTimeout(Duration.ofMillis(500));
+        properties.setReadTimeout(Duration.ofMillis(300));
+        return properties;
+    }
+
+    private ResilientOAuthService client(String tokenPath, OAuthClientProperties properties) {
+        String baseUrl = "http://127.0.0.1:" + provider.getAddress().getPort();
+        GoogleOAuthProperties googleOAuthProperties = new GoogleOAuthProperties();
+        googleOAuthProperties.setTokenUrl(baseUrl + tokenPath);
+        googleOAuthProperties.setUserInfoUrl(baseUrl + "/userinfo");
+        googleOAuthProperties.setCallbackEndpoint("/api/auth/oauth2/callback/google");
+
+        httpClient = RestTemplateConfig.createHttpClient(properties);
+        GoogleOAuthService googleOAuthService = new GoogleOAuthService();
+        ReflectionTestUtils.setField(googleOAuthService, "restTemplate",
+                new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient)));
+        ReflectionTestUtils.setField(googleOAuthService, "googleOAuthProperties", googleOAuthProperties);
+        return new ResilientOAuthService("google", googleOAuthService, properties, meterRegistry);
+    }
+
+    private void respond(HttpExchange exchange, String json) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}